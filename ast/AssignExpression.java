@@ -0,0 +1,25 @@
+package ast;
+
+public class AssignExpression extends Expression {
+    // example: x = y, x = 3
+    // has to be a var on the left
+    private final VarExpression LHS;
+    private final Expression RHS;
+
+    public AssignExpression(VarExpression LHS, Expression RHS) {
+        this.LHS = LHS;
+        this.RHS = RHS;
+    }
+
+    public VarExpression getLHS() {
+        return LHS;
+    }
+
+    public Expression getRHS() {
+        return RHS;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitAssignExpression(this);
+    }
+}
@@ -0,0 +1,551 @@
+package ast;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import scanner.SymbolTable;
+import scanner.Token.TokenType;
+
+public class AstArena {
+    /*
+        A C- AST stored flat: every node is an index into four int arrays,
+        kind, first child, next sibling and payload, instead of an ast
+        object with a header, references and lists for its children.
+        A node costs 16 bytes.
+
+        Nodes are added in preorder, so a node's children follow it and
+        a loop from 0 to size() visits the whole tree in source order.
+        A pass that only counts or collects nodes of some kind is that
+        loop, with no recursion. A Cursor walks the tree by first child,
+        next sibling and back to the parent, and reads a node's payload
+        checked against its kind.
+
+        Kind            payload             children
+        PROGRAM                             the declarations
+        VAR_DECL                            VAR
+        FUN_DECL        INT or VOID         VAR, LIST of PARAM or EMPTY for void, COMPOUND
+        PARAM                               VAR or ARRAY_VAR
+        LIST            number of children  the items
+        COMPOUND                            LIST of declarations, LIST of statements
+        EXPRESSION_STMT                     the expression
+        SELECTION                           condition, then, else (EMPTY without one)
+        ITERATION                           condition, body
+        RETURN                              the value, EMPTY for return;
+        ASSIGN                              VAR, value
+        BINARY          operator ordinal    left, right
+        CALL                                VAR, LIST of arguments
+        NUM             the number
+        VAR             symbol id           the index, for x[i]
+        ARRAY_VAR       symbol id                               x[] as a param
+        EMPTY                               none, a null in the object AST
+
+        Names are ids in a SymbolTable, the scanner's own when it is passed
+        in, so INT and VOID are SymbolTable's keyword ids.
+     */
+
+    public static final int EMPTY = 0;
+    public static final int PROGRAM = 1;
+    public static final int VAR_DECL = 2;
+    public static final int FUN_DECL = 3;
+    public static final int PARAM = 4;
+    public static final int LIST = 5;
+    public static final int COMPOUND = 6;
+    public static final int EXPRESSION_STMT = 7;
+    public static final int SELECTION = 8;
+    public static final int ITERATION = 9;
+    public static final int RETURN = 10;
+    public static final int ASSIGN = 11;
+    public static final int BINARY = 12;
+    public static final int CALL = 13;
+    public static final int NUM = 14;
+    public static final int VAR = 15;
+    public static final int ARRAY_VAR = 16;
+
+    private static final String[] KIND_NAMES = { "EMPTY", "PROGRAM", "VAR_DECL", "FUN_DECL", "PARAM", "LIST",
+        "COMPOUND", "EXPRESSION_STMT", "SELECTION", "ITERATION", "RETURN", "ASSIGN", "BINARY", "CALL", "NUM", "VAR",
+        "ARRAY_VAR" };
+    private static final TokenType[] TYPES = TokenType.values();
+
+    // No child or no next sibling
+    public static final int NONE = -1;
+
+    private int[] kinds = new int[256];
+    private int[] firstChildren = new int[256];
+    private int[] nextSiblings = new int[256];
+    private int[] payloads = new int[256];
+    private int size;
+
+    private SymbolTable symbols;
+
+    public AstArena() {
+        this(new SymbolTable());
+    }
+
+    public AstArena(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    // The arena of an object AST
+    public static AstArena of(Program program) {
+        AstArena arena = new AstArena();
+        arena.add(program);
+        arena.trim();
+        return arena;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int kind(int node) {
+        return kinds[node];
+    }
+
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int payload(int node) {
+        return payloads[node];
+    }
+
+    // Nodes of one kind, in one pass over the arrays
+    public int count(int kind) {
+        int count = 0;
+        for (int node = 0; node < size; node++) {
+            if (kinds[node] == kind) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    public static String kindName(int kind) {
+        return KIND_NAMES[kind];
+    }
+
+    // Bytes held by the node arrays, as allocated
+    public long footprint() {
+        return 4L * (kinds.length + firstChildren.length + nextSiblings.length + payloads.length);
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /* Building, in preorder */
+
+    // A new node without children, returned by index
+    public int node(int kind, int payload) {
+        if (size == kinds.length) {
+            int capacity = Math.max(size * 2, 256);
+            kinds = Arrays.copyOf(kinds, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+        }
+        kinds[size] = kind;
+        firstChildren[size] = NONE;
+        nextSiblings[size] = NONE;
+        payloads[size] = payload;
+        return size++;
+    }
+
+    // Drop the room left for more nodes
+    public void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        firstChildren = Arrays.copyOf(firstChildren, size);
+        nextSiblings = Arrays.copyOf(nextSiblings, size);
+        payloads = Arrays.copyOf(payloads, size);
+    }
+
+    // Make child the next child of parent, after last (NONE for the first), and return it
+    public int link(int parent, int last, int child) {
+        if (last == NONE) {
+            firstChildren[parent] = child;
+        } else {
+            nextSiblings[last] = child;
+        }
+        return child;
+    }
+
+    // Add an object AST, returning the index of its PROGRAM node
+    public int add(Program program) {
+        return new Builder().add(program);
+    }
+
+    private class Builder {
+        /*
+            Adds an object AST in preorder with a stack of its own, so a
+            tree nested as deeply as the parser allows fits. Objects still
+            to add wait on the stack, last child on top, each with its role,
+            what kind of node it becomes, and the depth of that node. The
+            nodes on the path from the root are on an int stack, like the
+            Cursor's, each with its last child so far, so a new node is
+            linked after its parent's last child.
+         */
+
+        private static final int ROLE_DECL = 0;
+        private static final int ROLE_PARAM = 1;
+        private static final int ROLE_STATEMENT = 2;
+        private static final int ROLE_EXPRESSION = 3;
+        private static final int ROLE_VAR = 4;
+        // ROLE_LIST_OF + role is a LIST of items with that role
+        private static final int ROLE_LIST_OF = 8;
+
+        private Object[] items = new Object[64];
+        private int[] roles = new int[64];
+        private int[] depths = new int[64];
+        private int top;
+
+        private int[] path = new int[64];
+        private int[] lastChildren = new int[64];
+
+        int add(Program program) {
+            int root = node(PROGRAM, 0);
+            path[0] = root;
+            lastChildren[0] = NONE;
+            pushAll(program.getDecls(), ROLE_DECL, 1);
+            while (top > 0) {
+                top--;
+                Object item = items[top];
+                items[top] = null;
+                int depth = depths[top];
+                int node = add(item, roles[top], depth + 1);
+                lastChildren[depth - 1] = link(path[depth - 1], lastChildren[depth - 1], node);
+            }
+            return root;
+        }
+
+        // A node for item, its children pushed to be added at childDepth
+        private int add(Object item, int role, int childDepth) {
+            int node;
+            if (role >= ROLE_LIST_OF) {
+                if (item == null) {
+                    return node(EMPTY, 0);
+                }
+                List < ? > list = (List < ? >) item;
+                node = open(LIST, list.size(), childDepth);
+                pushAll(list, role - ROLE_LIST_OF, childDepth);
+                return node;
+            }
+            if (role == ROLE_VAR) {
+                VarExpression var = (VarExpression) item;
+                int symbol = symbols.intern(var.getVar());
+                if (var.isBlankArray()) {
+                    return node(ARRAY_VAR, symbol);
+                }
+                node = open(VAR, symbol, childDepth);
+                if (var.getNum() != null) {
+                    push(var.getNum(), ROLE_EXPRESSION, childDepth);
+                }
+                return node;
+            }
+            if (role == ROLE_PARAM) {
+                node = open(PARAM, 0, childDepth);
+                push(((Param) item).getName(), ROLE_VAR, childDepth);
+                return node;
+            }
+            if (item instanceof VarDecl) {
+                node = open(VAR_DECL, 0, childDepth);
+                push(((VarDecl) item).getName(), ROLE_VAR, childDepth);
+            } else if (item instanceof FunDecl) {
+                FunDecl fun = (FunDecl) item;
+                node = open(FUN_DECL, symbols.intern(fun.getReturnType()), childDepth);
+                push(fun.getContent(), ROLE_STATEMENT, childDepth);
+                push(fun.getParams(), ROLE_LIST_OF + ROLE_PARAM, childDepth);
+                push(fun.getName(), ROLE_VAR, childDepth);
+            } else if (item instanceof ExpressionStmt) {
+                node = open(EXPRESSION_STMT, 0, childDepth);
+                push(((ExpressionStmt) item).getExpression(), ROLE_EXPRESSION, childDepth);
+            } else if (item instanceof CompoundStmt) {
+                CompoundStmt compound = (CompoundStmt) item;
+                node = open(COMPOUND, 0, childDepth);
+                push(compound.getStatements(), ROLE_LIST_OF + ROLE_STATEMENT, childDepth);
+                push(compound.getLocalDecls(), ROLE_LIST_OF + ROLE_DECL, childDepth);
+            } else if (item instanceof SelectionStmt) {
+                SelectionStmt selection = (SelectionStmt) item;
+                node = open(SELECTION, 0, childDepth);
+                push(selection.getElseSequence(), ROLE_STATEMENT, childDepth);
+                push(selection.getIfSequence(), ROLE_STATEMENT, childDepth);
+                push(selection.getCondition(), ROLE_EXPRESSION, childDepth);
+            } else if (item instanceof IterationStmt) {
+                IterationStmt iteration = (IterationStmt) item;
+                node = open(ITERATION, 0, childDepth);
+                push(iteration.getSequence(), ROLE_STATEMENT, childDepth);
+                push(iteration.getCondition(), ROLE_EXPRESSION, childDepth);
+            } else if (item instanceof ReturnStmt) {
+                node = open(RETURN, 0, childDepth);
+                push(((ReturnStmt) item).getValue(), ROLE_EXPRESSION, childDepth);
+            } else if (item instanceof VarExpression) {
+                return add(item, ROLE_VAR, childDepth);
+            } else if (item instanceof NumExpression) {
+                node = node(NUM, ((NumExpression) item).getNum());
+            } else if (item instanceof AssignExpression) {
+                AssignExpression assign = (AssignExpression) item;
+                node = open(ASSIGN, 0, childDepth);
+                push(assign.getRHS(), ROLE_EXPRESSION, childDepth);
+                push(assign.getLHS(), ROLE_VAR, childDepth);
+            } else if (item instanceof BinaryExpression) {
+                BinaryExpression binary = (BinaryExpression) item;
+                node = open(BINARY, binary.getOp().ordinal(), childDepth);
+                push(binary.getRHS(), ROLE_EXPRESSION, childDepth);
+                push(binary.getLHS(), ROLE_EXPRESSION, childDepth);
+            } else if (item instanceof CallExpression) {
+                CallExpression call = (CallExpression) item;
+                node = open(CALL, 0, childDepth);
+                push(call.getArgs(), ROLE_LIST_OF + ROLE_EXPRESSION, childDepth);
+                push(call.getLHS(), ROLE_VAR, childDepth);
+            } else {
+                // null
+                node = node(EMPTY, 0);
+            }
+            return node;
+        }
+
+        // A node whose children are added next, at childDepth
+        private int open(int kind, int payload, int childDepth) {
+            int node = node(kind, payload);
+            if (childDepth == path.length) {
+                path = Arrays.copyOf(path, childDepth * 2);
+                lastChildren = Arrays.copyOf(lastChildren, childDepth * 2);
+            }
+            path[childDepth - 1] = node;
+            lastChildren[childDepth - 1] = NONE;
+            return node;
+        }
+
+        private void pushAll(List < ? > list, int role, int depth) {
+            for (int i = list.size() - 1; i >= 0; i--) {
+                push(list.get(i), role, depth);
+            }
+        }
+
+        private void push(Object item, int role, int depth) {
+            if (top == items.length) {
+                items = Arrays.copyOf(items, top * 2);
+                roles = Arrays.copyOf(roles, top * 2);
+                depths = Arrays.copyOf(depths, top * 2);
+            }
+            items[top] = item;
+            roles[top] = role;
+            depths[top] = depth;
+            top++;
+        }
+    }
+
+    /* Back to objects */
+
+    // The object AST of the PROGRAM node at index 0. Nodes are converted from the last
+    // to the first, so in preorder every child is ready before its parent, with no stack.
+    public Program toProgram() {
+        checkKind(0, PROGRAM);
+        // The object for each node, null for LIST and EMPTY
+        Object[] objects = new Object[size];
+        for (int node = size - 1; node > 0; node--) {
+            objects[node] = toObject(node, objects);
+        }
+        ArrayList < Decl > decls = new ArrayList < Decl > ();
+        for (int child = firstChildren[0]; child != NONE; child = nextSiblings[child]) {
+            decls.add((Decl) objects[child]);
+        }
+        return new Program(decls);
+    }
+
+    private Object toObject(int node, Object[] objects) {
+        int child = firstChildren[node];
+        switch (kinds[node]) {
+            case VAR_DECL:
+                return new VarDecl((VarExpression) objects[child]);
+            case FUN_DECL: {
+                int params = nextSiblings[child];
+                ArrayList < Param > paramList = null;
+                if (kinds[params] == LIST) {
+                    paramList = new ArrayList < Param > ();
+                    for (int item = firstChildren[params]; item != NONE; item = nextSiblings[item]) {
+                        paramList.add((Param) objects[item]);
+                    }
+                }
+                return new FunDecl(symbols.name(payloads[node]), (VarExpression) objects[child], paramList,
+                    (CompoundStmt) objects[nextSiblings[params]]);
+            }
+            case PARAM:
+                return new Param((VarExpression) objects[child]);
+            case EXPRESSION_STMT:
+                return new ExpressionStmt((Expression) objects[child]);
+            case COMPOUND: {
+                ArrayList < Decl > localDecls = new ArrayList < Decl > ();
+                for (int item = firstChildren[child]; item != NONE; item = nextSiblings[item]) {
+                    localDecls.add((Decl) objects[item]);
+                }
+                ArrayList < Statement > statements = new ArrayList < Statement > ();
+                for (int item = firstChildren[nextSiblings[child]]; item != NONE; item = nextSiblings[item]) {
+                    statements.add((Statement) objects[item]);
+                }
+                return new CompoundStmt(localDecls, statements);
+            }
+            case SELECTION: {
+                int ifNode = nextSiblings[child];
+                return new SelectionStmt((Expression) objects[child], (Statement) objects[ifNode],
+                    (Statement) objects[nextSiblings[ifNode]]);
+            }
+            case ITERATION:
+                return new IterationStmt((Expression) objects[child], (Statement) objects[nextSiblings[child]]);
+            case RETURN:
+                return new ReturnStmt((Expression) objects[child]);
+            case ASSIGN:
+                return new AssignExpression((VarExpression) objects[child], (Expression) objects[nextSiblings[child]]);
+            case BINARY:
+                return new BinaryExpression((Expression) objects[child], TYPES[payloads[node]],
+                    (Expression) objects[nextSiblings[child]]);
+            case CALL: {
+                ArrayList < Expression > args = new ArrayList < Expression > ();
+                for (int item = firstChildren[nextSiblings[child]]; item != NONE; item = nextSiblings[item]) {
+                    args.add((Expression) objects[item]);
+                }
+                return new CallExpression((VarExpression) objects[child], args);
+            }
+            case NUM:
+                return new NumExpression(payloads[node]);
+            case VAR: {
+                String name = symbols.name(payloads[node]);
+                if (child != NONE) {
+                    return new VarExpression(name, (Expression) objects[child]);
+                }
+                return new VarExpression(name);
+            }
+            case ARRAY_VAR:
+                return new VarExpression(symbols.name(payloads[node]), true);
+            default:
+                return null;
+        }
+    }
+
+    private void checkKind(int node, int kind) {
+        if (kinds[node] != kind) {
+            throw new IllegalStateException("node " + node + " is " + KIND_NAMES[kinds[node]] + ", not "
+                + KIND_NAMES[kind]);
+        }
+    }
+
+    /* Print AST, the same text as the object AST prints */
+    public void printTree(Writer out) throws IOException {
+        new AstPrinter(out).print(toProgram());
+    }
+
+    public class Cursor {
+        /*
+            A position in the arena that moves to a node's first child, its
+            next sibling or back up to its parent. The nodes above it are
+            kept on an int stack. The payload getters check the kind of the
+            current node, so a wrong guess about the tree is an exception
+            and not a misread number.
+         */
+
+        private int node;
+        private int[] parents = new int[16];
+        private int depth;
+
+        public int node() {
+            return node;
+        }
+
+        public int kind() {
+            return kinds[node];
+        }
+
+        public boolean is(int kind) {
+            return kinds[node] == kind;
+        }
+
+        public int depth() {
+            return depth;
+        }
+
+        // Down to the first child, false and no move if there is none
+        public boolean toFirstChild() {
+            int child = firstChildren[node];
+            if (child == NONE) {
+                return false;
+            }
+            if (depth == parents.length) {
+                parents = Arrays.copyOf(parents, depth * 2);
+            }
+            parents[depth++] = node;
+            node = child;
+            return true;
+        }
+
+        public boolean toNextSibling() {
+            int sibling = nextSiblings[node];
+            if (sibling == NONE) {
+                return false;
+            }
+            node = sibling;
+            return true;
+        }
+
+        public boolean toParent() {
+            if (depth == 0) {
+                return false;
+            }
+            node = parents[--depth];
+            return true;
+        }
+
+        // Back to the root
+        public void reset() {
+            node = 0;
+            depth = 0;
+        }
+
+        // Name of a VAR or ARRAY_VAR
+        public String name() {
+            return symbols.name(symbol());
+        }
+
+        public int symbol() {
+            if (kinds[node] != ARRAY_VAR) {
+                checkKind(node, VAR);
+            }
+            return payloads[node];
+        }
+
+        public int num() {
+            checkKind(node, NUM);
+            return payloads[node];
+        }
+
+        public TokenType op() {
+            checkKind(node, BINARY);
+            return TYPES[payloads[node]];
+        }
+
+        // "int" or "void"
+        public String returnType() {
+            checkKind(node, FUN_DECL);
+            return symbols.name(payloads[node]);
+        }
+
+        // Items in a LIST
+        public int count() {
+            checkKind(node, LIST);
+            return payloads[node];
+        }
+
+        public String toString() {
+            return KIND_NAMES[kinds[node]] + " " + node;
+        }
+    }
+}
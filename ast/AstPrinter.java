@@ -0,0 +1,392 @@
+package ast;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import scanner.Token.TokenType;
+
+public class AstPrinter implements Visitor < Void > {
+    /*
+        Prints a tree in the parser's output format: a node's name on a
+        line, its children below it one INDENT further in.
+
+        The tree is walked with a stack of its own instead of the Java
+        stack, so a tree nested as deeply as the parser allows prints. A
+        visit writes the node's first lines at once and pushes the rest,
+        children and closing lines, last first; print() pops and writes
+        them until the stack is empty.
+
+        Every line starts with the prefix its node was given: level spaces,
+        then tail, then pad spaces. Nearly every prefix is only spaces, so
+        it is a number, and a line's indentation is copied out of one array
+        of spaces, no String made for it. The exception is a param, whose
+        name line starts with "int ": tail holds that, and pad the spaces
+        added after it further down. A child's prefix is before spaces, the
+        parent's prefix, after spaces, as the format has always built it,
+        which comes to the same number of spaces while tail is empty.
+
+        Output goes into one char buffer, reused from tree to tree, and
+        reaches the Writer a buffer at a time. print() ends with the
+        buffer written out and the Writer flushed. Given an OutputStream,
+        the printer encodes with the default charset, as FileWriter does.
+
+        A null statement, from a lone ; or a return;, prints nothing.
+
+        Each printer has its own buffer and stack, so trees can be printed
+        on several threads at once with a printer each.
+     */
+
+    private static final int INDENT = 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String[] OPS = new String[TokenType.values().length];
+
+    static {
+        OPS[TokenType.PLUS_TOKEN.ordinal()] = "+";
+        OPS[TokenType.MINUS_TOKEN.ordinal()] = "-";
+        OPS[TokenType.MULT_TOKEN.ordinal()] = "*";
+        OPS[TokenType.DIVIDE_TOKEN.ordinal()] = "/";
+        OPS[TokenType.NOT_EQUAL_TOKEN.ordinal()] = "!=";
+        OPS[TokenType.EQUAL_TOKEN.ordinal()] = "==";
+        OPS[TokenType.GREATER_EQUAL_TOKEN.ordinal()] = ">=";
+        OPS[TokenType.GREATER_TOKEN.ordinal()] = ">";
+        OPS[TokenType.LESS_EQUAL_TOKEN.ordinal()] = "<=";
+        OPS[TokenType.LESS_TOKEN.ordinal()] = "<";
+    }
+
+    private Writer out;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int length;
+
+    // Every indentation is a prefix of this, grown for deeper trees
+    private char[] spaces = new char[256];
+
+    // Prefix of the node being visited
+    private int level;
+    private String tail = "";
+    private int pad;
+
+    // Nodes still to visit and lines still to write, each with its prefix
+    private Object[] items = new Object[64];
+    private int[] levels = new int[64];
+    private String[] tails = new String[64];
+    private int[] pads = new int[64];
+    private int top;
+
+    public AstPrinter(Writer out) {
+        this.out = out;
+        Arrays.fill(spaces, ' ');
+    }
+
+    public AstPrinter(OutputStream out) {
+        this(new OutputStreamWriter(out));
+    }
+
+    public AstPrinter(OutputStream out, Charset charset) {
+        this(new OutputStreamWriter(out, charset));
+    }
+
+    // Print the whole tree. The writer is flushed but not closed.
+    public void print(Program program) throws IOException {
+        level = 0;
+        tail = "";
+        pad = 0;
+        top = 0;
+        push(program, 0, 0, "");
+        try {
+            while (top > 0) {
+                top--;
+                Object item = items[top];
+                items[top] = null;
+                level = levels[top];
+                tail = tails[top];
+                pad = pads[top];
+                if (item instanceof Node) {
+                    ((Node) item).accept(this);
+                } else {
+                    line(0, 0, (String) item);
+                }
+            }
+            flushBuffer();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            length = 0;
+            Arrays.fill(items, 0, top, null);
+            top = 0;
+        }
+        out.flush();
+    }
+
+    /* Buffer */
+
+    private void flushBuffer() {
+        try {
+            out.write(buffer, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        length = 0;
+    }
+
+    private void write(char c) {
+        if (length == buffer.length) {
+            flushBuffer();
+        }
+        buffer[length++] = c;
+    }
+
+    private void write(String text) {
+        if (text == null) {
+            text = "null";
+        }
+        int count = text.length();
+        if (length + count > buffer.length) {
+            flushBuffer();
+            if (count > buffer.length) {
+                buffer = new char[count];
+            }
+        }
+        text.getChars(0, count, buffer, length);
+        length += count;
+    }
+
+    private void writeSpaces(int count) {
+        if (count > spaces.length) {
+            spaces = new char[Math.max(count, spaces.length * 2)];
+            Arrays.fill(spaces, ' ');
+        }
+        if (length + count > buffer.length) {
+            flushBuffer();
+            if (count > buffer.length) {
+                buffer = new char[count];
+            }
+        }
+        System.arraycopy(spaces, 0, buffer, length, count);
+        length += count;
+    }
+
+    private void writeNum(int num) {
+        if (num < 0) {
+            write(String.valueOf(num));
+            return;
+        }
+        if (length + 10 > buffer.length) {
+            flushBuffer();
+        }
+        int digits = 1;
+        for (int rest = num / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (char) ('0' + num % 10);
+            num /= 10;
+        }
+        length += digits;
+    }
+
+    // The start of a line: before spaces, the prefix, after spaces
+    private void indent(int before, int after) {
+        if (tail.isEmpty()) {
+            writeSpaces(level + before + after);
+        } else {
+            writeSpaces(level + before);
+            write(tail);
+            writeSpaces(pad + after);
+        }
+    }
+
+    private void line(int before, int after, String text) {
+        indent(before, after);
+        write(text);
+        write('\n');
+    }
+
+    /* Stack */
+
+    // Visit node later with before spaces, the prefix, after spaces and text as its prefix
+    private void push(Node node, int before, int after, String text) {
+        if (node != null) {
+            push((Object) node, before, after, text);
+        }
+    }
+
+    private void push(Node node, int before, int after) {
+        push(node, before, after, "");
+    }
+
+    // Write text on a line later, as line() would now
+    private void pushLine(int before, int after, String text) {
+        push((Object) (text == null ? "null" : text), before, after, "");
+    }
+
+    private void push(Object item, int before, int after, String text) {
+        if (top == items.length) {
+            grow();
+        }
+        items[top] = item;
+        if (tail.isEmpty()) {
+            levels[top] = level + before + after;
+            tails[top] = text;
+            pads[top] = 0;
+        } else if (text.isEmpty()) {
+            levels[top] = level + before;
+            tails[top] = tail;
+            pads[top] = pad + after;
+        } else {
+            // A second tail under the first, which no C- tree has
+            levels[top] = level + before;
+            tails[top] = tail + new String(spaces, 0, pad + after) + text;
+            pads[top] = 0;
+        }
+        top++;
+    }
+
+    private void grow() {
+        int capacity = top * 2;
+        items = Arrays.copyOf(items, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        tails = Arrays.copyOf(tails, capacity);
+        pads = Arrays.copyOf(pads, capacity);
+    }
+
+    /* Nodes */
+
+    public Void visitProgram(Program program) {
+        write("Program {\n");
+        pushLine(0, 0, "}");
+        List < Decl > decls = program.getDecls();
+        for (int i = decls.size() - 1; i >= 0; i--) {
+            push(decls.get(i), 0, 0);
+        }
+        return null;
+    }
+
+    public Void visitParam(Param param) {
+        push(param.getName(), 0, INDENT, "int ");
+        return null;
+    }
+
+    public Void visitVarDecl(VarDecl decl) {
+        line(0, INDENT, "int");
+        push(decl.getName(), 0, INDENT);
+        return null;
+    }
+
+    public Void visitFunDecl(FunDecl decl) {
+        indent(0, INDENT);
+        write("function ");
+        write(decl.getReturnType());
+        write('\n');
+        push(decl.getContent(), 0, INDENT);
+        pushLine(0, 2 * INDENT, ")");
+        List < Param > params = decl.getParams();
+        if (params != null) {
+            for (int i = params.size() - 1; i >= 0; i--) {
+                push(params.get(i), 0, INDENT);
+            }
+        }
+        pushLine(0, 2 * INDENT, "Params (");
+        push(decl.getName(), 0, INDENT);
+        return null;
+    }
+
+    public Void visitExpressionStmt(ExpressionStmt statement) {
+        push(statement.getExpression(), 0, 0);
+        return null;
+    }
+
+    public Void visitCompoundStmt(CompoundStmt statement) {
+        line(0, INDENT, "{");
+        pushLine(0, INDENT, "}");
+        List < Statement > statements = statement.getStatements();
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            push(statements.get(i), 0, INDENT);
+        }
+        List < Decl > decls = statement.getLocalDecls();
+        for (int i = decls.size() - 1; i >= 0; i--) {
+            push(decls.get(i), 0, INDENT);
+        }
+        return null;
+    }
+
+    public Void visitSelectionStmt(SelectionStmt statement) {
+        line(INDENT, 0, "if (");
+        if (statement.getElseSequence() != null) {
+            push(statement.getElseSequence(), INDENT, 0);
+            pushLine(INDENT, 0, "else");
+        }
+        push(statement.getIfSequence(), INDENT, 0);
+        pushLine(INDENT, 0, ")");
+        push(statement.getCondition(), INDENT, 0);
+        return null;
+    }
+
+    public Void visitIterationStmt(IterationStmt statement) {
+        line(INDENT, 0, "while");
+        line(INDENT, 0, "(");
+        push(statement.getSequence(), INDENT, 0);
+        pushLine(INDENT, 0, ")");
+        push(statement.getCondition(), INDENT, 0);
+        return null;
+    }
+
+    public Void visitReturnStmt(ReturnStmt statement) {
+        line(INDENT, 0, "return");
+        push(statement.getValue(), INDENT, 0);
+        return null;
+    }
+
+    public Void visitAssignExpression(AssignExpression expression) {
+        line(INDENT, 0, "=");
+        push(expression.getRHS(), INDENT, 0);
+        push(expression.getLHS(), INDENT, 0);
+        return null;
+    }
+
+    public Void visitBinaryExpression(BinaryExpression expression) {
+        TokenType op = expression.getOp();
+        line(0, INDENT, op == null ? null : OPS[op.ordinal()]);
+        push(expression.getRHS(), 0, INDENT);
+        push(expression.getLHS(), 0, INDENT);
+        return null;
+    }
+
+    public Void visitCallExpression(CallExpression expression) {
+        pushLine(INDENT, 0, ")");
+        List < Expression > args = expression.getArgs();
+        for (int i = args.size() - 1; i >= 0; i--) {
+            push(args.get(i), INDENT, 2);
+        }
+        pushLine(INDENT, 0, "(");
+        push(expression.getLHS(), 0, 0);
+        return null;
+    }
+
+    public Void visitNumExpression(NumExpression expression) {
+        indent(INDENT, 0);
+        writeNum(expression.getNum());
+        write('\n');
+        return null;
+    }
+
+    public Void visitVarExpression(VarExpression expression) {
+        indent(INDENT, 0);
+        write(expression.getVar());
+        if (expression.isBlankArray()) {
+            write("[]\n");
+        } else if (expression.getNum() == null) {
+            write('\n');
+        } else {
+            write(" [\n");
+            pushLine(INDENT, 0, "]");
+            push(expression.getNum(), INDENT, 0);
+        }
+        return null;
+    }
+}
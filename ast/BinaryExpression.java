@@ -0,0 +1,32 @@
+package ast;
+
+import scanner.Token.TokenType;
+
+public class BinaryExpression extends Expression {
+    // example: 3 + 4, a + b
+    private final Expression LHS;
+    private final TokenType op;
+    private final Expression RHS;
+
+    public BinaryExpression(Expression LHS, TokenType op, Expression RHS) {
+        this.LHS = LHS;
+        this.op = op;
+        this.RHS = RHS;
+    }
+
+    public Expression getLHS() {
+        return LHS;
+    }
+
+    public TokenType getOp() {
+        return op;
+    }
+
+    public Expression getRHS() {
+        return RHS;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitBinaryExpression(this);
+    }
+}
@@ -0,0 +1,27 @@
+package ast;
+
+import java.util.List;
+
+public class CallExpression extends Expression {
+    // example: gcd(3, 4)
+    private final VarExpression LHS;
+    private final List < Expression > args;
+
+    public CallExpression(VarExpression LHS, List < Expression > args) {
+        this.LHS = LHS;
+        this.args = copy(args);
+    }
+
+    // the function called
+    public VarExpression getLHS() {
+        return LHS;
+    }
+
+    public List < Expression > getArgs() {
+        return args;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitCallExpression(this);
+    }
+}
@@ -0,0 +1,27 @@
+package ast;
+
+import java.util.List;
+
+public class CompoundStmt extends Statement {
+    // a sequence of other statements inside { }
+    // example: { int x; x = 3; y = y + 3; }
+    private final List < Decl > localDecls;
+    private final List < Statement > statements;
+
+    public CompoundStmt(List < Decl > localDecls, List < Statement > statements) {
+        this.localDecls = copy(localDecls);
+        this.statements = copy(statements);
+    }
+
+    public List < Decl > getLocalDecls() {
+        return localDecls;
+    }
+
+    public List < Statement > getStatements() {
+        return statements;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitCompoundStmt(this);
+    }
+}
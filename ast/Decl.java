@@ -0,0 +1,5 @@
+package ast;
+
+public abstract class Decl extends Node {
+    // abstract, will be a VarDecl or a FunDecl
+}
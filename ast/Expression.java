@@ -0,0 +1,5 @@
+package ast;
+
+public abstract class Expression extends Node {
+    // abstract expression, will be one of the other 5
+}
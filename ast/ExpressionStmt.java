@@ -0,0 +1,18 @@
+package ast;
+
+public class ExpressionStmt extends Statement {
+    // example: a + 3;
+    private final Expression expression;
+
+    public ExpressionStmt(Expression expression) {
+        this.expression = expression;
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitExpressionStmt(this);
+    }
+}
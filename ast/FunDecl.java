@@ -0,0 +1,40 @@
+package ast;
+
+import java.util.List;
+
+public class FunDecl extends Decl {
+    // example: int gcd (int x, int y) { }
+    private final String returnType;
+    private final VarExpression name;
+    private final List < Param > params;
+    private final CompoundStmt content;
+
+    // params is null for (void)
+    public FunDecl(String returnType, VarExpression name, List < Param > params, CompoundStmt content) {
+        this.returnType = returnType;
+        this.name = name;
+        this.params = params == null ? null : copy(params);
+        this.content = content;
+    }
+
+    // "int" or "void"
+    public String getReturnType() {
+        return returnType;
+    }
+
+    public VarExpression getName() {
+        return name;
+    }
+
+    public List < Param > getParams() {
+        return params;
+    }
+
+    public CompoundStmt getContent() {
+        return content;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitFunDecl(this);
+    }
+}
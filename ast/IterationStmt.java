@@ -0,0 +1,24 @@
+package ast;
+
+public class IterationStmt extends Statement {
+    // example: while (x > 0) { }
+    private final Expression condition;
+    private final Statement sequence;
+
+    public IterationStmt(Expression condition, Statement sequence) {
+        this.condition = condition;
+        this.sequence = sequence;
+    }
+
+    public Expression getCondition() {
+        return condition;
+    }
+
+    public Statement getSequence() {
+        return sequence;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitIterationStmt(this);
+    }
+}
@@ -0,0 +1,28 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public abstract class Node {
+    /*
+        A node of the C- abstract syntax tree. Nodes are immutable and
+        hold no reference to the parser that made them, so a tree can be
+        kept, shared between threads and walked by any number of passes
+        at once.
+
+        A pass is a Visitor: accept() calls the visit method for the
+        node's class. A pass that rewrites the tree is a Transformer.
+
+        Where the parser found nothing, a child is null: the else of an
+        if without one, the value of return;, the params of f(void), and
+        the statement parsed from a lone ; in a list.
+     */
+
+    public abstract < R > R accept(Visitor < R > visitor);
+
+    // An unmodifiable copy, nulls kept
+    static < T > List < T > copy(List < ? extends T > items) {
+        return Collections.unmodifiableList(new ArrayList < T > (items));
+    }
+}
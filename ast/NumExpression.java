@@ -0,0 +1,18 @@
+package ast;
+
+public class NumExpression extends Expression {
+    // example: 3
+    private final int num;
+
+    public NumExpression(int num) {
+        this.num = num;
+    }
+
+    public int getNum() {
+        return num;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitNumExpression(this);
+    }
+}
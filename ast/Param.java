@@ -0,0 +1,18 @@
+package ast;
+
+public class Param extends Node {
+    // example: int x or int x[]
+    private final VarExpression name;
+
+    public Param(VarExpression name) {
+        this.name = name;
+    }
+
+    public VarExpression getName() {
+        return name;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitParam(this);
+    }
+}
@@ -0,0 +1,20 @@
+package ast;
+
+import java.util.List;
+
+public class Program extends Node {
+    // the declarations of a file, in order
+    private final List < Decl > decls;
+
+    public Program(List < Decl > decls) {
+        this.decls = copy(decls);
+    }
+
+    public List < Decl > getDecls() {
+        return decls;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitProgram(this);
+    }
+}
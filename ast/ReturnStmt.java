@@ -0,0 +1,24 @@
+package ast;
+
+public class ReturnStmt extends Statement {
+    // example: return x;
+    // could also be blank: return;
+    private final Expression value;
+
+    public ReturnStmt() {
+        this(null);
+    }
+
+    public ReturnStmt(Expression value) {
+        this.value = value;
+    }
+
+    // null for return;
+    public Expression getValue() {
+        return value;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitReturnStmt(this);
+    }
+}
@@ -0,0 +1,35 @@
+package ast;
+
+public class SelectionStmt extends Statement {
+    // example: if (x) { } else { }
+    private final Expression condition;
+    private final Statement ifSequence;
+    private final Statement elseSequence;
+
+    public SelectionStmt(Expression condition, Statement ifSequence, Statement elseSequence) {
+        this.condition = condition;
+        this.ifSequence = ifSequence;
+        this.elseSequence = elseSequence;
+    }
+
+    public SelectionStmt(Expression condition, Statement ifSequence) {
+        this(condition, ifSequence, null);
+    }
+
+    public Expression getCondition() {
+        return condition;
+    }
+
+    public Statement getIfSequence() {
+        return ifSequence;
+    }
+
+    // null without an else
+    public Statement getElseSequence() {
+        return elseSequence;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitSelectionStmt(this);
+    }
+}
@@ -0,0 +1,5 @@
+package ast;
+
+public abstract class Statement extends Node {
+    // abstract, will be one of the 5 statements
+}
@@ -0,0 +1,161 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Transformer implements Visitor < Node > {
+    /*
+        A pass that rewrites the tree. Each visit method transforms the
+        node's children and makes a new node only when one of them came
+        back different, so whatever the pass leaves alone is shared
+        between the old tree and the new one, and nothing is copied.
+
+        A rewrite overrides the visit methods of the nodes it changes,
+        calling super first to have the children done. Names, the left of
+        an assignment and the function of a call stay VarExpressions.
+        A null child stays null.
+     */
+
+    public Program transform(Program program) {
+        return (Program) program.accept(this);
+    }
+
+    protected Decl transform(Decl decl) {
+        return decl == null ? null : (Decl) decl.accept(this);
+    }
+
+    protected Statement transform(Statement statement) {
+        return statement == null ? null : (Statement) statement.accept(this);
+    }
+
+    protected Expression transform(Expression expression) {
+        return expression == null ? null : (Expression) expression.accept(this);
+    }
+
+    protected VarExpression transform(VarExpression expression) {
+        return expression == null ? null : (VarExpression) expression.accept(this);
+    }
+
+    // The same list when no item changed
+    @SuppressWarnings("unchecked")
+    protected < T extends Node > List < T > transform(List < T > items) {
+        if (items == null) {
+            return null;
+        }
+        List < T > result = items;
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            T changed = item == null ? null : (T) item.accept(this);
+            if (changed != item) {
+                if (result == items) {
+                    result = new ArrayList < T > (items);
+                }
+                result.set(i, changed);
+            }
+        }
+        return result;
+    }
+
+    public Node visitProgram(Program program) {
+        List < Decl > decls = transform(program.getDecls());
+        return decls == program.getDecls() ? program : new Program(decls);
+    }
+
+    public Node visitParam(Param param) {
+        VarExpression name = transform(param.getName());
+        return name == param.getName() ? param : new Param(name);
+    }
+
+    public Node visitVarDecl(VarDecl decl) {
+        VarExpression name = transform(decl.getName());
+        return name == decl.getName() ? decl : new VarDecl(name);
+    }
+
+    public Node visitFunDecl(FunDecl decl) {
+        VarExpression name = transform(decl.getName());
+        List < Param > params = transform(decl.getParams());
+        CompoundStmt content = (CompoundStmt) transform(decl.getContent());
+        if (name == decl.getName() && params == decl.getParams() && content == decl.getContent()) {
+            return decl;
+        }
+        return new FunDecl(decl.getReturnType(), name, params, content);
+    }
+
+    public Node visitExpressionStmt(ExpressionStmt statement) {
+        Expression expression = transform(statement.getExpression());
+        return expression == statement.getExpression() ? statement : new ExpressionStmt(expression);
+    }
+
+    public Node visitCompoundStmt(CompoundStmt statement) {
+        List < Decl > localDecls = transform(statement.getLocalDecls());
+        List < Statement > statements = transform(statement.getStatements());
+        if (localDecls == statement.getLocalDecls() && statements == statement.getStatements()) {
+            return statement;
+        }
+        return new CompoundStmt(localDecls, statements);
+    }
+
+    public Node visitSelectionStmt(SelectionStmt statement) {
+        Expression condition = transform(statement.getCondition());
+        Statement ifSequence = transform(statement.getIfSequence());
+        Statement elseSequence = transform(statement.getElseSequence());
+        if (condition == statement.getCondition() && ifSequence == statement.getIfSequence()
+            && elseSequence == statement.getElseSequence()) {
+            return statement;
+        }
+        return new SelectionStmt(condition, ifSequence, elseSequence);
+    }
+
+    public Node visitIterationStmt(IterationStmt statement) {
+        Expression condition = transform(statement.getCondition());
+        Statement sequence = transform(statement.getSequence());
+        if (condition == statement.getCondition() && sequence == statement.getSequence()) {
+            return statement;
+        }
+        return new IterationStmt(condition, sequence);
+    }
+
+    public Node visitReturnStmt(ReturnStmt statement) {
+        Expression value = transform(statement.getValue());
+        return value == statement.getValue() ? statement : new ReturnStmt(value);
+    }
+
+    public Node visitAssignExpression(AssignExpression expression) {
+        VarExpression LHS = transform(expression.getLHS());
+        Expression RHS = transform(expression.getRHS());
+        if (LHS == expression.getLHS() && RHS == expression.getRHS()) {
+            return expression;
+        }
+        return new AssignExpression(LHS, RHS);
+    }
+
+    public Node visitBinaryExpression(BinaryExpression expression) {
+        Expression LHS = transform(expression.getLHS());
+        Expression RHS = transform(expression.getRHS());
+        if (LHS == expression.getLHS() && RHS == expression.getRHS()) {
+            return expression;
+        }
+        return new BinaryExpression(LHS, expression.getOp(), RHS);
+    }
+
+    public Node visitCallExpression(CallExpression expression) {
+        VarExpression LHS = transform(expression.getLHS());
+        List < Expression > args = transform(expression.getArgs());
+        if (LHS == expression.getLHS() && args == expression.getArgs()) {
+            return expression;
+        }
+        return new CallExpression(LHS, args);
+    }
+
+    public Node visitNumExpression(NumExpression expression) {
+        return expression;
+    }
+
+    public Node visitVarExpression(VarExpression expression) {
+        Expression num = transform(expression.getNum());
+        if (num == expression.getNum()) {
+            return expression;
+        }
+        return new VarExpression(expression.getVar(), num);
+    }
+}
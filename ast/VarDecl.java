@@ -0,0 +1,18 @@
+package ast;
+
+public class VarDecl extends Decl {
+    // example: int x; or int x[10];
+    private final VarExpression name;
+
+    public VarDecl(VarExpression name) {
+        this.name = name;
+    }
+
+    public VarExpression getName() {
+        return name;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitVarDecl(this);
+    }
+}
@@ -0,0 +1,44 @@
+package ast;
+
+public class VarExpression extends Expression {
+    // example: x or x[10] or x[]
+    private final String var;
+    private final Expression num;
+    private final boolean blankArray;
+
+    public VarExpression(String var) {
+        this(var, null, false);
+    }
+
+    public VarExpression(String var, Expression num) {
+        this(var, num, false);
+    }
+
+    public VarExpression(String var, boolean blankArray) {
+        this(var, null, blankArray);
+    }
+
+    private VarExpression(String var, Expression num, boolean blankArray) {
+        this.var = var;
+        this.num = num;
+        this.blankArray = blankArray;
+    }
+
+    public String getVar() {
+        return var;
+    }
+
+    // the index or array size, null for a plain name
+    public Expression getNum() {
+        return num;
+    }
+
+    // x[] as a param
+    public boolean isBlankArray() {
+        return blankArray;
+    }
+
+    public < R > R accept(Visitor < R > visitor) {
+        return visitor.visitVarExpression(this);
+    }
+}
@@ -0,0 +1,24 @@
+package ast;
+
+public interface Visitor < R > {
+    /*
+        One method per kind of node, each returning what the pass makes
+        of that node. A visitor decides itself whether and in which order
+        to visit the children, by calling accept() on them.
+     */
+
+    R visitProgram(Program program);
+    R visitParam(Param param);
+    R visitVarDecl(VarDecl decl);
+    R visitFunDecl(FunDecl decl);
+    R visitExpressionStmt(ExpressionStmt statement);
+    R visitCompoundStmt(CompoundStmt statement);
+    R visitSelectionStmt(SelectionStmt statement);
+    R visitIterationStmt(IterationStmt statement);
+    R visitReturnStmt(ReturnStmt statement);
+    R visitAssignExpression(AssignExpression expression);
+    R visitBinaryExpression(BinaryExpression expression);
+    R visitCallExpression(CallExpression expression);
+    R visitNumExpression(NumExpression expression);
+    R visitVarExpression(VarExpression expression);
+}
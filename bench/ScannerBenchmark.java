@@ -0,0 +1,192 @@
+package bench;
+
+import scanner.BlockCMinusScanner;
+import scanner.CMinusScanner;
+import scanner.Scanner;
+import scanner.TableCMinusScanner;
+import scanner.Token;
+import scanner.Token.TokenType;
+import scanner.TokenBuffer;
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScannerBenchmark {
+    /*
+        Scanner throughput over different shapes of C- input.
+
+        input is one of the generated shapes
+            identifiers - names of 1 to 12 letters
+            numbers     - digit runs of 1 to 9 digits
+            comments    - mostly comment text, with a little code between
+            operators   - operators between one-letter names, no spaces
+            longlines   - ordinary statements on lines of about 100 KB
+        of about size bytes, or a path to a real C- file:
+            java -jar target/benchmarks.jar -p input=/data/big.c,/data/other.c
+
+        Each benchmark scans the whole input once per operation. The
+        tokens and bytes counters are reported as rates next to the
+        operation rate, so tokens/s and bytes/s can be read directly.
+
+        main() always adds the GC profiler, which reports the allocation
+        rate (gc.alloc.rate and gc.alloc.rate.norm, bytes per scan).
+     */
+
+    @Param({"identifiers", "numbers", "comments", "operators", "longlines"})
+    public String input;
+
+    @Param({"1048576"})
+    public int size;
+
+    private char[] chars;
+    private byte[] bytes;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long tokens;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        String text;
+        if (Files.isRegularFile(Paths.get(input))) {
+            text = new String(Files.readAllBytes(Paths.get(input)), StandardCharsets.ISO_8859_1);
+        } else {
+            text = generate(input, size);
+        }
+        chars = text.toCharArray();
+        bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public int cMinusScanner(Counters counters) throws IOException {
+        return drain(new CMinusScanner(new BufferedReader(new CharArrayReader(chars))), counters);
+    }
+
+    @Benchmark
+    public int blockScanner(Counters counters) throws IOException {
+        return drain(new BlockCMinusScanner(new CharArrayReader(chars)), counters);
+    }
+
+    @Benchmark
+    public int tableScanner(Counters counters) {
+        return drain(new TableCMinusScanner(ByteBuffer.wrap(bytes)), counters);
+    }
+
+    @Benchmark
+    public TokenBuffer tableScanAll(Counters counters) {
+        TokenBuffer tokens = TokenBuffer.scan(new TableCMinusScanner(ByteBuffer.wrap(bytes)));
+        counters.tokens += tokens.size();
+        counters.bytes += bytes.length;
+        return tokens;
+    }
+
+    private int drain(Scanner scanner, Counters counters) {
+        int count = 0;
+        Token token = scanner.getNextToken();
+        while (token.getType() != TokenType.EOF_TOKEN) {
+            count++;
+            token = scanner.getNextToken();
+        }
+        counters.tokens += count + 1;
+        counters.bytes += chars.length;
+        return count;
+    }
+
+    // Generated input of one shape, the same every run
+    static String generate(String shape, int size) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(size + 128);
+        while (text.length() < size) {
+            switch (shape) {
+                case "identifiers":
+                    word(text, random, 1 + random.nextInt(12));
+                    text.append(random.nextInt(8) == 0 ? ";\n" : " ");
+                    break;
+                case "numbers":
+                    // NUM values must fit in an int
+                    text.append(random.nextInt(Integer.MAX_VALUE) % (int) Math.pow(10, 1 + random.nextInt(9)));
+                    text.append(random.nextInt(8) == 0 ? "\n" : " + ");
+                    break;
+                case "comments":
+                    text.append("/* ");
+                    for (int i = random.nextInt(40); i >= 0; i--) {
+                        word(text, random, 1 + random.nextInt(8));
+                        text.append(random.nextInt(10) == 0 ? " * " : " ");
+                    }
+                    text.append("*/\nx = x + 1;\n");
+                    break;
+                case "operators":
+                    String[] operators = { "+", "-", "*", "/", "<", "<=", ">", ">=", "==", "!=", "=", ";", ",", "(", ")", "[", "]", "{", "}" };
+                    text.append((char) ('a' + random.nextInt(26)));
+                    text.append(operators[random.nextInt(operators.length)]);
+                    break;
+                case "longlines":
+                    int lineEnd = text.length() + 100000;
+                    while (text.length() < lineEnd) {
+                        text.append("if (count <= limit) { total = total + values[count] * 3; count = count + 1; } ");
+                    }
+                    text.append('\n');
+                    break;
+                default:
+                    throw new IllegalArgumentException("input must be a file or one of identifiers, numbers, comments, operators, longlines: " + shape);
+            }
+        }
+        return text.toString();
+    }
+
+    private static void word(StringBuilder text, Random random, int length) {
+        for (int i = 0; i < length; i++) {
+            text.append((char) ((random.nextBoolean() ? 'a' : 'A') + random.nextInt(26)));
+        }
+    }
+
+    // Run the benchmarks with the GC profiler, other JMH options can be given as usual
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(ScannerBenchmark.class.getName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
@@ -0,0 +1,227 @@
+package parser;
+
+import scanner.Token.TokenType;
+
+public class CMinusGrammar {
+    /*
+        The C- grammar as a Grammar, the same productions CMinusParser has
+        in its comments, written with lists as right-recursive tails so
+        that the grammar is LL(1).
+
+        Between the symbols are actions for LLParser. Each one takes the
+        values of what was just parsed off its value stack and pushes the
+        AST node made from them, so a production's actions describe the
+        node it builds. IDENT, NUM and operator tokens put their name,
+        number or TokenType on the value stack when they are matched.
+     */
+
+    // Nonterminals, program first since it is the start symbol
+    public static final int PROGRAM = Grammar.NONTERMINAL;
+    public static final int DECL_LIST = PROGRAM + 1;
+    public static final int DECL = PROGRAM + 2;
+    public static final int DECL2 = PROGRAM + 3;
+    public static final int VAR_DECL = PROGRAM + 4;
+    public static final int FUN_DECL = PROGRAM + 5;
+    public static final int PARAMS = PROGRAM + 6;
+    public static final int PARAM_LIST2 = PROGRAM + 7;
+    public static final int PARAM = PROGRAM + 8;
+    public static final int PARAM2 = PROGRAM + 9;
+    public static final int COMPOUND_STMT = PROGRAM + 10;
+    public static final int LOCAL_DECLS = PROGRAM + 11;
+    public static final int STMT_LIST = PROGRAM + 12;
+    public static final int STATEMENT = PROGRAM + 13;
+    public static final int EXPRESSION_STMT = PROGRAM + 14;
+    public static final int SELECTION_STMT = PROGRAM + 15;
+    public static final int ELSE_PART = PROGRAM + 16;
+    public static final int ITERATION_STMT = PROGRAM + 17;
+    public static final int RETURN_STMT = PROGRAM + 18;
+    public static final int RETURN2 = PROGRAM + 19;
+    public static final int EXPRESSION = PROGRAM + 20;
+    public static final int EXPRESSION2 = PROGRAM + 21;
+    public static final int EXPRESSION3 = PROGRAM + 22;
+    public static final int SIMPLE_EXPR2 = PROGRAM + 23;
+    public static final int RELOP_PART = PROGRAM + 24;
+    public static final int RELOP = PROGRAM + 25;
+    public static final int ADDITIVE_EXPR = PROGRAM + 26;
+    public static final int ADD_LIST = PROGRAM + 27;
+    public static final int ADDOP = PROGRAM + 28;
+    public static final int TERM = PROGRAM + 29;
+    public static final int MUL_LIST = PROGRAM + 30;
+    public static final int MULOP = PROGRAM + 31;
+    public static final int FACTOR = PROGRAM + 32;
+    public static final int VARCALL = PROGRAM + 33;
+    public static final int ARGS = PROGRAM + 34;
+    public static final int ARG_LIST2 = PROGRAM + 35;
+
+    // Actions, see LLParser.act()
+    public static final int NEW_LIST = Grammar.ACTION;
+    public static final int ADD = NEW_LIST + 1;
+    public static final int NONE = NEW_LIST + 2;
+    public static final int VAR = NEW_LIST + 3;
+    public static final int NUM = NEW_LIST + 4;
+    public static final int INDEX = NEW_LIST + 5;
+    public static final int CALL = NEW_LIST + 6;
+    public static final int ASSIGN = NEW_LIST + 7;
+    public static final int BINARY = NEW_LIST + 8;
+    public static final int TYPE_VOID = NEW_LIST + 9;
+    public static final int TYPE_INT = NEW_LIST + 10;
+    public static final int MAKE_FUN_DECL = NEW_LIST + 11;
+    public static final int MAKE_VAR_DECL = NEW_LIST + 12;
+    public static final int MAKE_ARRAY_DECL = NEW_LIST + 13;
+    public static final int MAKE_PARAM = NEW_LIST + 14;
+    public static final int MAKE_ARRAY_PARAM = NEW_LIST + 15;
+    public static final int MAKE_COMPOUND = NEW_LIST + 16;
+    public static final int MAKE_EXPRESSION_STMT = NEW_LIST + 17;
+    public static final int MAKE_IF = NEW_LIST + 18;
+    public static final int MAKE_IF_ELSE = NEW_LIST + 19;
+    public static final int MAKE_WHILE = NEW_LIST + 20;
+    public static final int MAKE_RETURN = NEW_LIST + 21;
+    public static final int MAKE_PROGRAM = NEW_LIST + 22;
+
+    // Tokens whose value goes on the value stack when they are matched
+    public static final long VALUE_TOKENS = bit(TokenType.IDENT_TOKEN) | bit(TokenType.NUM_TOKEN)
+        | bit(TokenType.PLUS_TOKEN) | bit(TokenType.MINUS_TOKEN) | bit(TokenType.MULT_TOKEN) | bit(TokenType.DIVIDE_TOKEN)
+        | bit(TokenType.LESS_TOKEN) | bit(TokenType.LESS_EQUAL_TOKEN) | bit(TokenType.GREATER_TOKEN)
+        | bit(TokenType.GREATER_EQUAL_TOKEN) | bit(TokenType.EQUAL_TOKEN) | bit(TokenType.NOT_EQUAL_TOKEN);
+
+    public static final Grammar GRAMMAR = grammar();
+
+    private static long bit(TokenType type) {
+        return 1L << type.ordinal();
+    }
+
+    private static Grammar grammar() {
+        Grammar g = new Grammar("program", "decl-list", "decl", "decl'", "var-decl", "fun-decl", "params",
+            "param-list'", "param", "param'", "compound-stmt", "local-declarations", "statement-list", "statement",
+            "expression-stmt", "selection-stmt", "else-part", "iteration-stmt", "return-stmt", "return-stmt'",
+            "expression", "expression'", "expression''", "simple-expression'", "relop-part", "relop",
+            "additive-expression", "addop-list", "addop", "term", "mulop-list", "mulop", "factor", "varcall", "args",
+            "arg-list'");
+
+        // program → decl {decl}
+        g.rule(PROGRAM, NEW_LIST, DECL, ADD, DECL_LIST, MAKE_PROGRAM);
+        g.rule(DECL_LIST, DECL, ADD, DECL_LIST);
+        g.rule(DECL_LIST);
+
+        // decl → void ID fun-decl | int ID var-decl | int ID fun-decl
+        g.rule(DECL, TokenType.VOID_TOKEN, TokenType.IDENT_TOKEN, TYPE_VOID, FUN_DECL);
+        g.rule(DECL, TokenType.INT_TOKEN, TokenType.IDENT_TOKEN, DECL2);
+        g.rule(DECL2, TYPE_INT, FUN_DECL);
+        g.rule(DECL2, VAR_DECL);
+
+        // var-decl → [ "[" NUM "]" ] ;
+        g.rule(VAR_DECL, TokenType.SEMI_TOKEN, MAKE_VAR_DECL);
+        g.rule(VAR_DECL, TokenType.LEFT_BRACKET_TOKEN, TokenType.NUM_TOKEN, TokenType.RIGHT_BRACKET_TOKEN,
+            TokenType.SEMI_TOKEN, MAKE_ARRAY_DECL);
+
+        // fun-decl → "(" params ")" compound-stmt
+        g.rule(FUN_DECL, TokenType.LEFT_PAREN_TOKEN, PARAMS, TokenType.RIGHT_PAREN_TOKEN, COMPOUND_STMT, MAKE_FUN_DECL);
+
+        // params → param-list | void, param-list → param {, param}
+        g.rule(PARAMS, TokenType.VOID_TOKEN, NONE);
+        g.rule(PARAMS, NEW_LIST, PARAM, ADD, PARAM_LIST2);
+        g.rule(PARAM_LIST2, TokenType.COMMA_TOKEN, PARAM, ADD, PARAM_LIST2);
+        g.rule(PARAM_LIST2);
+
+        // param → int ID [ "[" "]" ]
+        g.rule(PARAM, TokenType.INT_TOKEN, TokenType.IDENT_TOKEN, PARAM2);
+        g.rule(PARAM2, TokenType.LEFT_BRACKET_TOKEN, TokenType.RIGHT_BRACKET_TOKEN, MAKE_ARRAY_PARAM);
+        g.rule(PARAM2, MAKE_PARAM);
+
+        // compound-stmt → "{" local-declarations statement-list "}"
+        g.rule(COMPOUND_STMT, TokenType.LEFT_BRACE_TOKEN, NEW_LIST, LOCAL_DECLS, NEW_LIST, STMT_LIST,
+            TokenType.RIGHT_BRACE_TOKEN, MAKE_COMPOUND);
+
+        // local-declarations → {int ID var-decl}
+        g.rule(LOCAL_DECLS, TokenType.INT_TOKEN, TokenType.IDENT_TOKEN, VAR_DECL, ADD, LOCAL_DECLS);
+        g.rule(LOCAL_DECLS);
+
+        // statement-list → {statement}
+        g.rule(STMT_LIST, STATEMENT, ADD, STMT_LIST);
+        g.rule(STMT_LIST);
+
+        // statement → expression-stmt | compound-stmt | selection-stmt | iteration-stmt | return-stmt
+        g.rule(STATEMENT, EXPRESSION_STMT);
+        g.rule(STATEMENT, COMPOUND_STMT);
+        g.rule(STATEMENT, SELECTION_STMT);
+        g.rule(STATEMENT, ITERATION_STMT);
+        g.rule(STATEMENT, RETURN_STMT);
+
+        // expression-stmt → [expression] ;
+        g.rule(EXPRESSION_STMT, EXPRESSION, TokenType.SEMI_TOKEN, MAKE_EXPRESSION_STMT);
+        g.rule(EXPRESSION_STMT, TokenType.SEMI_TOKEN, NONE);
+
+        // selection-stmt → if "(" expression ")" statement [else statement], an else goes with the nearest if
+        g.rule(SELECTION_STMT, TokenType.IF_TOKEN, TokenType.LEFT_PAREN_TOKEN, EXPRESSION, TokenType.RIGHT_PAREN_TOKEN,
+            STATEMENT, ELSE_PART);
+        g.prefer(ELSE_PART, TokenType.ELSE_TOKEN, STATEMENT, MAKE_IF_ELSE);
+        g.rule(ELSE_PART, MAKE_IF);
+
+        // iteration-stmt → while "(" expression ")" statement
+        g.rule(ITERATION_STMT, TokenType.WHILE_TOKEN, TokenType.LEFT_PAREN_TOKEN, EXPRESSION,
+            TokenType.RIGHT_PAREN_TOKEN, STATEMENT, MAKE_WHILE);
+
+        // return-stmt → return [expression] ;
+        g.rule(RETURN_STMT, TokenType.RETURN_TOKEN, RETURN2);
+        g.rule(RETURN2, TokenType.SEMI_TOKEN, NONE);
+        g.rule(RETURN2, EXPRESSION, TokenType.SEMI_TOKEN, MAKE_RETURN);
+
+        // expression → ID expression' | NUM simple-expression' | ( expression ) simple-expression'
+        g.rule(EXPRESSION, TokenType.IDENT_TOKEN, VAR, EXPRESSION2);
+        g.rule(EXPRESSION, TokenType.NUM_TOKEN, NUM, SIMPLE_EXPR2);
+        g.rule(EXPRESSION, TokenType.LEFT_PAREN_TOKEN, EXPRESSION, TokenType.RIGHT_PAREN_TOKEN, SIMPLE_EXPR2);
+
+        // expression' → = expression | "[" expression "]" expression'' | ( args ) simple-expression' | simple-expression'
+        g.rule(EXPRESSION2, TokenType.ASSIGN_TOKEN, EXPRESSION, ASSIGN);
+        g.rule(EXPRESSION2, TokenType.LEFT_BRACKET_TOKEN, EXPRESSION, TokenType.RIGHT_BRACKET_TOKEN, INDEX, EXPRESSION3);
+        g.rule(EXPRESSION2, TokenType.LEFT_PAREN_TOKEN, ARGS, TokenType.RIGHT_PAREN_TOKEN, CALL, SIMPLE_EXPR2);
+        g.rule(EXPRESSION2, SIMPLE_EXPR2);
+
+        // expression'' → = expression | simple-expression'
+        g.rule(EXPRESSION3, TokenType.ASSIGN_TOKEN, EXPRESSION, ASSIGN);
+        g.rule(EXPRESSION3, SIMPLE_EXPR2);
+
+        // simple-expression' → additive-expression' [relop additive-expression], additive-expression' → term' {addop term}
+        g.rule(SIMPLE_EXPR2, MUL_LIST, ADD_LIST, RELOP_PART);
+        g.rule(RELOP_PART, RELOP, ADDITIVE_EXPR, BINARY);
+        g.rule(RELOP_PART);
+        g.rule(RELOP, TokenType.LESS_EQUAL_TOKEN);
+        g.rule(RELOP, TokenType.LESS_TOKEN);
+        g.rule(RELOP, TokenType.GREATER_TOKEN);
+        g.rule(RELOP, TokenType.GREATER_EQUAL_TOKEN);
+        g.rule(RELOP, TokenType.EQUAL_TOKEN);
+        g.rule(RELOP, TokenType.NOT_EQUAL_TOKEN);
+
+        // additive-expression → term {addop term}
+        g.rule(ADDITIVE_EXPR, TERM, ADD_LIST);
+        g.rule(ADD_LIST, ADDOP, TERM, BINARY, ADD_LIST);
+        g.rule(ADD_LIST);
+        g.rule(ADDOP, TokenType.PLUS_TOKEN);
+        g.rule(ADDOP, TokenType.MINUS_TOKEN);
+
+        // term → factor {mulop factor}
+        g.rule(TERM, FACTOR, MUL_LIST);
+        g.rule(MUL_LIST, MULOP, FACTOR, BINARY, MUL_LIST);
+        g.rule(MUL_LIST);
+        g.rule(MULOP, TokenType.MULT_TOKEN);
+        g.rule(MULOP, TokenType.DIVIDE_TOKEN);
+
+        // factor → "(" expression ")" | ID varcall | NUM
+        g.rule(FACTOR, TokenType.LEFT_PAREN_TOKEN, EXPRESSION, TokenType.RIGHT_PAREN_TOKEN);
+        g.rule(FACTOR, TokenType.IDENT_TOKEN, VAR, VARCALL);
+        g.rule(FACTOR, TokenType.NUM_TOKEN, NUM);
+
+        // varcall → "(" args ")" | "[" expression "]" | ε
+        g.rule(VARCALL, TokenType.LEFT_PAREN_TOKEN, ARGS, TokenType.RIGHT_PAREN_TOKEN, CALL);
+        g.rule(VARCALL, TokenType.LEFT_BRACKET_TOKEN, EXPRESSION, TokenType.RIGHT_BRACKET_TOKEN, INDEX);
+        g.rule(VARCALL);
+
+        // args → arg-list | ε, arg-list → expression {, expression}
+        g.rule(ARGS, NEW_LIST, EXPRESSION, ADD, ARG_LIST2);
+        g.rule(ARGS, NEW_LIST);
+        g.rule(ARG_LIST2, TokenType.COMMA_TOKEN, EXPRESSION, ADD, ARG_LIST2);
+        g.rule(ARG_LIST2);
+
+        return g.build();
+    }
+}
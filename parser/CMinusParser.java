@@ -1,14 +1,31 @@
 package parser;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
-import scanner.CMinusScanner;
-import scanner.Token;
+import ast.AssignExpression;
+import ast.AstPrinter;
+import ast.BinaryExpression;
+import ast.CallExpression;
+import ast.CompoundStmt;
+import ast.Decl;
+import ast.Expression;
+import ast.ExpressionStmt;
+import ast.FunDecl;
+import ast.IterationStmt;
+import ast.NumExpression;
+import ast.Param;
+import ast.Program;
+import ast.ReturnStmt;
+import ast.SelectionStmt;
+import ast.Statement;
+import ast.VarDecl;
+import ast.VarExpression;
+import scanner.Scanner;
 import scanner.Token.TokenType;
+import scanner.TokenStream;
 
 public class CMinusParser implements Parser {
     /*
@@ -16,395 +33,209 @@ public class CMinusParser implements Parser {
         Given a program written in the C- language,
         Create an Abstract Syntax Tree (AST).
 
-        Use the Scanner from Project #1 to scan tokens.
-
-        Classes
-        1. Program
-        2. Param
-        3. Decl
-        4. VarDecl
-        5. FunDecl
-        6. Statement
-        7. ExpressionStmt
-        8. CompoundStmt
-        9. SelectionStmt
-        10. IterationStmt
-        11. ReturnStmt
-        12. Expression
-        13. AssignExpression
-        14. BinaryExpression
-        15. CallExpression
-        16. NumExpression
-        17. VarExpression
+        Use the Scanner from Project #1 to scan tokens. They are read as a
+        TokenStream, kinds and values as ints, so parsing makes no Token
+        objects when the scanner can give them without (see TokenSource).
+        A parse function can look a few tokens ahead with tokens.kind(k)
+        instead of passing half-parsed pieces to a helper.
+
+        A syntax error is a ParseError, made once and filled in again. By
+        default the parse stops at the first one. A recovering parser
+        notes it in getDiagnostics() instead and skips ahead in panic mode
+        to a token from the follow sets below: ; or } for a statement or
+        local declaration, int or void for a declaration. Program is then
+        everything that parsed, without the statements and declarations
+        that had errors.
+
+        The tree is made of the node classes of the ast package, which
+        outlive the parser. printTree() prints it with an AstPrinter.
 
         Parse Functions
         1. parseProgram
         2. parseDecl
-        3. parseDecl2
-        4. parseFunDecl
-        5. parseParams
-        6. parseParamList
-        7. parseParam
-        8. parseCompoundStmt
-        9. parseLocalDecl
-        10. parseStatementList
-        11. parseStatement
-        12. parseExpressionStmt
-        13. parseSelectionStmt
-        14. parseIterationStmt
-        15. parseReturnStmt
-        16. parseExpression
-        17. parseExpression2
-        18. parseExpression3
-        19. parseSimpleExpr2
-        20. parseAdditiveExpr
-        21. parseAdditiveExpr2
-        22. parseTerm
-        23. parseTerm2
-        24. parseFactor
-        25. parseVarCall
-        26. parseArgs
-        27. parseArgList
+        3. parseFunDecl
+        4. parseParams
+        5. parseParamList
+        6. parseParam
+        7. parseCompoundStmt
+        8. parseLocalDecl
+        9. parseStatementList
+        10. parseStatement
+        11. parseExpressionStmt
+        12. parseSelectionStmt
+        13. parseIterationStmt
+        14. parseReturnStmt
+        15. parseExpression
+        16. parseOperators
+        17. parseFactor
+        18. parseArgs
+        19. parseArgList
+
+        Expressions are parsed by precedence climbing over PRECEDENCE, a
+        table of the binary operators by token: one call per precedence
+        level, not one per grammar rule, and a new operator is a new
+        entry. The tree is the same as the grammar gives: mulops bind
+        tighter than addops, both group to the left, at most one relop,
+        and = assigns a variable the whole expression on its right.
 
         Extra Functions
         1. matchToken() - check and advance
-        2. advanceToken() - just advance
-        3. checkToken() - just check
+        2. matchName(), matchNum() - check and advance, returning the value
+        3. advanceToken() - just advance
+        4. checkToken() - just check
+        5. error() - parse error with the line and column of the current token
+        6. recover() - note an error and skip to a synchronizing token
+
+        Nesting is bounded by the thread's stack. A program nested past it
+        is a NestingError, not a StackOverflowError; LLParser parses it. A
+        recovering parser notes it in getDiagnostics() and stops there,
+        with Program holding the declarations before it: the token stream
+        may be left half-way through a token, so it is not read again.
      */
 
     /* Constructor */
-    private CMinusScanner scanner;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    // Binding power of each binary operator by TokenType ordinal, 0 for other tokens
+    private static final int ASSIGN_LEVEL = 1;
+    private static final int RELOP_LEVEL = 2;
+    private static final int ADDOP_LEVEL = 3;
+    private static final int MULOP_LEVEL = 4;
+    private static final int[] PRECEDENCE = new int[TYPES.length];
+
+    static {
+        PRECEDENCE[TokenType.ASSIGN_TOKEN.ordinal()] = ASSIGN_LEVEL;
+        PRECEDENCE[TokenType.LESS_TOKEN.ordinal()] = RELOP_LEVEL;
+        PRECEDENCE[TokenType.LESS_EQUAL_TOKEN.ordinal()] = RELOP_LEVEL;
+        PRECEDENCE[TokenType.GREATER_TOKEN.ordinal()] = RELOP_LEVEL;
+        PRECEDENCE[TokenType.GREATER_EQUAL_TOKEN.ordinal()] = RELOP_LEVEL;
+        PRECEDENCE[TokenType.EQUAL_TOKEN.ordinal()] = RELOP_LEVEL;
+        PRECEDENCE[TokenType.NOT_EQUAL_TOKEN.ordinal()] = RELOP_LEVEL;
+        PRECEDENCE[TokenType.PLUS_TOKEN.ordinal()] = ADDOP_LEVEL;
+        PRECEDENCE[TokenType.MINUS_TOKEN.ordinal()] = ADDOP_LEVEL;
+        PRECEDENCE[TokenType.MULT_TOKEN.ordinal()] = MULOP_LEVEL;
+        PRECEDENCE[TokenType.DIVIDE_TOKEN.ordinal()] = MULOP_LEVEL;
+    }
+
+    // Tokens to skip ahead to after a syntax error, from the follow sets
+    private static final long DECL_SYNC = bits(TokenType.INT_TOKEN, TokenType.VOID_TOKEN, TokenType.EOF_TOKEN);
+    private static final long STATEMENT_SYNC = bits(TokenType.SEMI_TOKEN, TokenType.RIGHT_BRACE_TOKEN,
+        TokenType.INT_TOKEN, TokenType.VOID_TOKEN, TokenType.EOF_TOKEN);
+
+    private TokenStream tokens;
+    private boolean recover;
+    private ArrayList < Diagnostic > diagnostics = new ArrayList < Diagnostic > ();
+    private ParseError failure = new ParseError();
+    // Set by an error until the next token is matched, so one mistake is noted once
+    private boolean panic;
+    // Set when the Java stack ran out, the parse stopped there
+    private boolean nestedTooDeeply;
     public Program program;
-    public HashMap < TokenType, String > ops = new HashMap < TokenType, String > ();
-    public String INDENT = "    ";
-    public FileWriter outputFile;
-
-    public CMinusParser(CMinusScanner inScanner) throws Exception {
-        scanner = inScanner;
-        program = parseProgram();
 
-        // Add keys and values (Name, Age)
-        ops.put(TokenType.PLUS_TOKEN, "+");
-        ops.put(TokenType.MINUS_TOKEN, "-");
-        ops.put(TokenType.MULT_TOKEN, "*");
-        ops.put(TokenType.DIVIDE_TOKEN, "/");
-        ops.put(TokenType.NOT_EQUAL_TOKEN, "!=");
-        ops.put(TokenType.EQUAL_TOKEN, "==");
-        ops.put(TokenType.GREATER_EQUAL_TOKEN, ">=");
-        ops.put(TokenType.GREATER_TOKEN, ">");
-        ops.put(TokenType.LESS_EQUAL_TOKEN, "<=");
-        ops.put(TokenType.LESS_TOKEN, "<");
+    public CMinusParser(Scanner inScanner) throws Exception {
+        this(TokenStream.of(inScanner), false);
     }
 
-    /* Helper functions */
-    public Boolean checkToken(TokenType token) {
-        return (scanner.viewNextToken().getType() == token);
-    }
-    public Token advanceToken() {
-        return scanner.getNextToken();
+    public CMinusParser(Scanner inScanner, boolean recover) throws Exception {
+        this(TokenStream.of(inScanner), recover);
     }
-    public Token matchToken(TokenType token) throws Exception {
-        Token nextToken = scanner.getNextToken();
-        if (nextToken.getType() != token) {
-            throw new Exception("Error: Unexpected token. Was expecting " + token.toString() + " but got " + nextToken.toString());
-        }
-        return nextToken;
-    }
-
-    /* 17 classes */
-    public class Program {
-        public ArrayList<Decl> decls;
 
-        public Program(ArrayList<Decl> decls) {
-            this.decls = decls;
-        }
-
-        void print() throws IOException {
-            outputFile.write("Program {\n");
-            for (int i = 0; i < decls.size(); i++) {
-                if (decls.get(i) != null) {
-                    decls.get(i).print("");
-                }
-            }
-            outputFile.write("}\n");
-        }
+    public CMinusParser(TokenStream inTokens) throws Exception {
+        this(inTokens, false);
     }
 
-    public class Param {
-        // example: int x
-        public VarExpression name;
-
-        public Param(VarExpression name) {
-            this.name = name;
-        }
-
-        void print(String parentSpace) throws IOException {
-            this.name.print(parentSpace + INDENT + "int ");
-        }
+    // With recover, syntax errors go to getDiagnostics() and the parse goes on
+    public CMinusParser(TokenStream inTokens, boolean recover) throws Exception {
+        tokens = inTokens;
+        this.recover = recover;
+        program = parseProgram();
     }
 
-    abstract class Decl {
-        // abstract, will be one of the other two decls
-        abstract void print(String parentSpace) throws IOException;
+    /* Helper functions */
+    public Boolean checkToken(TokenType token) {
+        return (tokens.kind() == token.ordinal());
     }
-
-    public class VarDecl extends Decl {
-        // example: int x; or int x[10];
-        public VarExpression name;
-
-        public VarDecl(VarExpression name) {
-            this.name = name;
-        }
-
-        void print(String parentSpace) throws IOException {
-            outputFile.write(parentSpace + INDENT + "int\n");
-            this.name.print(parentSpace + INDENT);
-        }
+    public TokenType advanceToken() {
+        TokenType type = TYPES[tokens.kind()];
+        advance();
+        return type;
     }
-
-    public class FunDecl extends Decl {
-        // example: int gcd (int x, int y) { }
-        // we need return type, function name, params, and compound statement
-        String returnType;
-        VarExpression name;
-        List < Param > params;
-        CompoundStmt content;
-
-        public FunDecl(String returnType, VarExpression name, List < Param > params, CompoundStmt content) {
-            this.returnType = returnType;
-            this.name = name;
-            this.params = params;
-            this.content = content;
-        }
-
-        void print(String parentSpace) throws IOException {
-            String mySpace = parentSpace + INDENT;
-            outputFile.write(mySpace + "function " + this.returnType + "\n");
-            name.print(mySpace);
-            outputFile.write(mySpace + INDENT + "Params (\n");
-            if (this.params != null) {
-                for (int i = 0; i < params.size(); i++) {
-                    params.get(i).print(mySpace);
-                }
-            }
-            outputFile.write(mySpace + INDENT + ")\n");
-            content.print(mySpace);
+    public void matchToken(TokenType token) throws Exception {
+        if (tokens.kind() != token.ordinal()) {
+            throw unexpected(token);
         }
+        advance();
     }
-
-    abstract class Statement {
-        // abstract, will be one of the other 5 statements
-        abstract void print(String parentSpace) throws IOException;
-    }
-
-    public class ExpressionStmt extends Statement {
-        // example: a + 3;
-
-        public Expression statement;
-        public ExpressionStmt(Expression statement) {
-            this.statement = statement;
-        }
-
-        void print(String parentSpace) throws IOException {
-            this.statement.print(parentSpace);
+    public String matchName() throws Exception {
+        if (tokens.kind() != TokenType.IDENT_TOKEN.ordinal()) {
+            throw unexpected(TokenType.IDENT_TOKEN);
         }
+        String name = tokens.name();
+        advance();
+        return name;
     }
-
-    public class CompoundStmt extends Statement {
-        // a sequence of other statements inside { }
-        // example: { x = 3; y = y + 3; }
-        ArrayList < Decl > localDecls = new ArrayList < Decl > ();
-        ArrayList < Statement > statements = new ArrayList < Statement > ();
-        public CompoundStmt(ArrayList < Decl > localDecls, ArrayList < Statement > statements) {
-            this.localDecls = localDecls;
-            this.statements = statements;
-        }
-
-        void print(String parentSpace) throws IOException {
-            String mySpace = parentSpace + INDENT;
-            outputFile.write(mySpace + "{\n");
-            for (int i = 0; i < localDecls.size(); i++) {
-                localDecls.get(i).print(mySpace);
-            }
-            for (int i = 0; i < statements.size(); i++) {
-                statements.get(i).print(mySpace);
-            }
-            outputFile.write(mySpace + "}\n");
+    public int matchNum() throws Exception {
+        if (tokens.kind() != TokenType.NUM_TOKEN.ordinal()) {
+            throw unexpected(TokenType.NUM_TOKEN);
         }
+        int num = tokens.intValue();
+        advance();
+        return num;
     }
-
-    public class SelectionStmt extends Statement {
-        // example: if (statement) { } else { }
-        public Expression condition;
-        public Statement ifSequence;
-        public Statement elseSequence;
-
-        public SelectionStmt(Expression condition, Statement ifSequence, Statement elseSequence) {
-            this.condition = condition;
-            this.ifSequence = ifSequence;
-            this.elseSequence = elseSequence;
-        }
-        public SelectionStmt(Expression condition, Statement ifSequence) {
-            this.condition = condition;
-            this.ifSequence = ifSequence;
-        }
-
-        void print(String parentSpace) throws IOException {
-            String mySpace = INDENT + parentSpace;
-            outputFile.write(mySpace + "if (\n");
-            this.condition.print(mySpace);
-            outputFile.write(mySpace + ")\n");
-            this.ifSequence.print(mySpace);
-            if (this.elseSequence != null) {
-                outputFile.write(mySpace + "else\n");
-                this.elseSequence.print(mySpace);
-            }
-        }
+    private void advance() {
+        tokens.advance();
+        panic = false;
     }
-
-    public class IterationStmt extends Statement {
-        // example: while (x > 0) { }
-        Expression condition;
-        Statement sequence;
-        public IterationStmt(Expression condition, Statement sequence) {
-            this.condition = condition;
-            this.sequence = sequence;
-        }
-
-        void print(String parentSpace) throws IOException {
-            String mySpace = INDENT + parentSpace;
-            outputFile.write(mySpace + "while\n");
-            outputFile.write(mySpace + "(\n");
-            this.condition.print(mySpace);
-            outputFile.write(mySpace + ")\n");
-            this.sequence.print(mySpace);
+    // The current token is not the expected one. It is shown as Token.toString() would.
+    private ParseError unexpected(TokenType expected) {
+        TokenType type = TYPES[tokens.kind()];
+        String got = type.toString();
+        if (type == TokenType.IDENT_TOKEN) {
+            got += " " + tokens.name();
+        } else if (type == TokenType.NUM_TOKEN) {
+            got += " " + tokens.intValue();
         }
+        return error("Error: Unexpected token. Was expecting " + expected.toString() + " but got " + got);
     }
-
-    public class ReturnStmt extends Statement {
-        // example: return x;
-        // could also be blank: return;
-        Expression LHS;
-        public ReturnStmt() {}
-        public ReturnStmt(Expression LHS) {
-            this.LHS = LHS;
-        }
-
-        void print(String parentSpace) throws IOException {
-            String mySpace = INDENT + parentSpace;
-            outputFile.write(mySpace + "return\n");
-            if (this.LHS != null) {
-                this.LHS.print(mySpace);
-            }
-        }
-    }
-
-    abstract class Expression {
-        // abstract expression, will be one of the other 5
-        abstract void print(String parentSpace) throws IOException;
+    // Parse error at the current token, with its line and column when the scanner knows them
+    public ParseError error(String message) {
+        return failure.set(message, tokens.line(), tokens.column());
     }
-
-    public class AssignExpression extends Expression {
-        // example: x = y, x = 3
-        // has to be a var on the left
-        VarExpression LHS;
-        Expression RHS;
-
-        public AssignExpression(VarExpression LHS, Expression RHS) {
-            this.LHS = LHS;
-            this.RHS = RHS;
+    // Panic mode: note error unless it follows one not yet recovered from, then skip to a
+    // token in sync. A ; ends the broken statement, so it is skipped too.
+    private void recover(ParseError error, long sync) throws ParseError {
+        if (!recover) {
+            throw error;
         }
-
-        void print(String parentSpace) throws IOException {
-            String mySpace = INDENT + parentSpace;
-            outputFile.write(mySpace + "=\n");
-            this.LHS.print(mySpace);
-            this.RHS.print(mySpace);
+        if (!panic) {
+            diagnostics.add(error.toDiagnostic());
+            panic = true;
         }
-    }
-
-    public class BinaryExpression extends Expression {
-        // example: 3 + 4, a + b
-        Expression LHS;
-        TokenType op;
-        Expression RHS;
-
-        public BinaryExpression(Expression LHS, TokenType op, Expression RHS) {
-            this.LHS = LHS;
-            this.op = op;
-            this.RHS = RHS;
+        while ((sync & (1L << tokens.kind())) == 0) {
+            tokens.advance();
         }
-
-        void print(String parentSpace) throws IOException {
-            String mySpace = parentSpace + INDENT;
-            outputFile.write(mySpace + ops.get(this.op) + "\n");
-            this.LHS.print(mySpace);
-            this.RHS.print(mySpace);
+        if (checkToken(TokenType.SEMI_TOKEN)) {
+            tokens.advance();
         }
     }
-
-    public class CallExpression extends Expression {
-        // example: gcd(3, 4)
-        VarExpression LHS;
-        ArrayList < Expression > args;
-
-        public CallExpression(VarExpression LHS, ArrayList < Expression > args) {
-            this.LHS = LHS;
-            this.args = args;
-        }
-
-        void print(String parentSpace) throws IOException {
-            String mySpace = INDENT + parentSpace;
-            this.LHS.print(parentSpace);
-            outputFile.write(mySpace + "(\n");
-            for (int i = 0; i < args.size(); i++) {
-                args.get(i).print(mySpace + "  ");
-            }
-            outputFile.write(mySpace + ")\n");
+    private static long bits(TokenType... types) {
+        long bits = 0;
+        for (TokenType type : types) {
+            bits |= 1L << type.ordinal();
         }
+        return bits;
     }
 
-    public class NumExpression extends Expression {
-        // example: 3
-        int num;
-        public NumExpression(int num) {
-            this.num = num;
-        }
-
-        void print(String parentSpace) throws IOException {
-            outputFile.write(INDENT + parentSpace + this.num + "\n");
-        }
+    // Syntax errors noted by a recovering parse, in order
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
     }
-
-    public class VarExpression extends Expression {
-        // example: x or x[10] or x[]
-        String var;
-        Expression num;
-        Boolean blankArray = false;
-
-        public VarExpression(String var) {
-            this.var = var;
-        }
-        public VarExpression(String var, Expression num) {
-            this.var = var;
-            this.num = num;
-        }
-        public VarExpression(String var, Boolean blankArray) {
-            this.var = var;
-            this.blankArray = blankArray;
-        }
-
-        void print(String parentSpace) throws IOException {
-            if (this.blankArray){
-                outputFile.write(INDENT + parentSpace + this.var + "[]\n");
-            } else if (this.num == null) {
-                outputFile.write(INDENT + parentSpace + this.var + "\n");
-            } else {
-                outputFile.write(INDENT + parentSpace + this.var + " [\n");
-                this.num.print(INDENT + parentSpace);
-                outputFile.write(INDENT + parentSpace + "]\n");
-            }
-        }
+    public boolean hasErrors() {
+        return !diagnostics.isEmpty();
+    }
+    // A recovering parse stopped at the first declaration too deep for the Java stack
+    public boolean isNestedTooDeeply() {
+        return nestedTooDeeply;
     }
 
     /* Parse Functions */
@@ -418,23 +249,40 @@ public class CMinusParser implements Parser {
 
         // check if next token is in first set
         do {
-            Decl nextDecl = parseDecl();
-            declList.add(nextDecl);
-        } while (checkToken(TokenType.INT_TOKEN) 
-              || checkToken(TokenType.VOID_TOKEN));
-
-        // if we're no longer in the first set, check if we're in the follow set - if yes, continue, if not, error
-        if (!checkToken(TokenType.EOF_TOKEN)) {
-            throw new Exception("Parse error in parseProgram(): expected end of file.");
-        }
+            try {
+                Decl nextDecl = parseDecl();
+                declList.add(nextDecl);
+
+                // if we're no longer in the first set, check if we're in the follow set - if yes, continue, if not, error
+                if (!checkToken(TokenType.INT_TOKEN)
+                    && !checkToken(TokenType.VOID_TOKEN)
+                    && !checkToken(TokenType.EOF_TOKEN)) {
+                    throw error("Parse error in parseProgram(): expected end of file.");
+                }
+            } catch (ParseError e) {
+                recover(e, DECL_SYNC);
+            } catch (StackOverflowError e) {
+                // Each nested statement or ( ) is a few frames here, LLParser keeps its stack on the heap.
+                // The overflow may have struck inside the token stream or a list half-way through an
+                // update, so nothing more is read: the parse ends with what it has.
+                NestingError error = new NestingError();
+                if (!recover) {
+                    throw error;
+                }
+                diagnostics.add(error.toDiagnostic());
+                nestedTooDeeply = true;
+                break;
+            }
+        } while (!checkToken(TokenType.EOF_TOKEN));
 
         return new Program(declList);
     }
 
     private Decl parseDecl() throws Exception {
-        /* decl -> void ID fun-decl | int ID decl'
+        /* decl -> void ID fun-decl | int ID var-decl | int ID fun-decl
          * first(decl) = { void, int }
          * follow(decl) = { $, int, void }
+         * after int ID, ( starts a fun-decl and ; or [ a var-decl
          */
 
         Decl decl = null;
@@ -443,22 +291,28 @@ public class CMinusParser implements Parser {
             matchToken(TokenType.VOID_TOKEN);
             String returnType = "void";
 
-            Token temp = matchToken(TokenType.IDENT_TOKEN);
-            VarExpression name = new VarExpression((String) temp.getData());
+            VarExpression name = new VarExpression(matchName());
 
             decl = parseFunDecl(returnType, name);
         } 
         else if (checkToken(TokenType.INT_TOKEN)) {
             String returnType = "int";
+            TokenType after = TYPES[tokens.kind(2)];
             matchToken(TokenType.INT_TOKEN);
 
-            
-            Token temp = matchToken(TokenType.IDENT_TOKEN);
-            String name = (String) temp.getData();
-            decl = parseDecl2(returnType, name);
+            String name = matchName();
+            if (after == TokenType.LEFT_PAREN_TOKEN) {
+                decl = parseFunDecl(returnType, new VarExpression(name));
+            }
+            else if (after == TokenType.LEFT_BRACKET_TOKEN || after == TokenType.SEMI_TOKEN) {
+                decl = parseVarDecl(name);
+            }
+            else {
+                throw error("Error: parseDecl expects ; [ or ( after int ID");
+            }
         } 
         else {
-            throw new Exception("Error: parseDecl() expects int or void.");
+            throw error("Error: parseDecl() expects int or void.");
         }
 
         return decl;
@@ -481,42 +335,17 @@ public class CMinusParser implements Parser {
         return funDecl;
     }
 
-    private Decl parseDecl2(String returnType, String name) throws Exception {
-        /* decl’ → var-decl | fun-decl
-         * First(decl') → { ;, [, ( }
-         * Follow(decl') → { $, void, int }
-         */
-
-        Decl decl2 = null;
-
-        if (checkToken(TokenType.LEFT_BRACKET_TOKEN) 
-        || checkToken(TokenType.SEMI_TOKEN)) {
-            decl2 = parseVarDecl(name);
-        }  
-        else if (checkToken(TokenType.LEFT_PAREN_TOKEN)) {
-            VarExpression var = new VarExpression(name);
-            decl2 = parseFunDecl(returnType, var);
-        } 
-        else {
-            throw new Exception("Error: parseDecl2 expects ; [ or (");
-        }
-
-        return decl2;
-    }
-
     private Decl parseVarDecl(String name) throws Exception {
         /* var-decl → [ “[“ NUM “]” ] ;
          * First(var-decl) → { ;, [ }
          * Follow(var-decl) → { int, “}”, ;, ID, NUM, (, *, /, +, -, ;, {, if, while, return }
          */
         Decl varDecl = null;
-        Token temp;
 
         if (checkToken(TokenType.LEFT_BRACKET_TOKEN)) {
             matchToken(TokenType.LEFT_BRACKET_TOKEN);
 
-            temp = matchToken(TokenType.NUM_TOKEN);
-            Expression index = new NumExpression((int) temp.getData());
+            Expression index = new NumExpression(matchNum());
             VarExpression var = new VarExpression(name, index);
             varDecl = new VarDecl(var);
 
@@ -529,7 +358,7 @@ public class CMinusParser implements Parser {
             matchToken(TokenType.SEMI_TOKEN);
         }
         else {
-            throw new Exception("Error: parseVarDecl expects ; or [");
+            throw error("Error: parseVarDecl expects ; or [");
         }
 
         return varDecl;
@@ -548,7 +377,7 @@ public class CMinusParser implements Parser {
             matchToken(TokenType.VOID_TOKEN);
         } 
         else {
-            throw new Exception("Error: parseParams expects int or void");
+            throw error("Error: parseParams expects int or void");
         }
 
         return params;
@@ -580,12 +409,10 @@ public class CMinusParser implements Parser {
          * Follow(param) → { “,”, ) }
          */
         Param param = null;
-        Token temp;
 
         matchToken(TokenType.INT_TOKEN);
 
-        temp = matchToken(TokenType.IDENT_TOKEN);
-        String name = (String) temp.getData();
+        String name = matchName();
 
         if (checkToken(TokenType.LEFT_BRACKET_TOKEN)) {
             matchToken(TokenType.LEFT_BRACKET_TOKEN);
@@ -599,7 +426,7 @@ public class CMinusParser implements Parser {
             param = new Param(var);
         }
         else {
-            throw new Exception("Error: parseParam expected ( ) or ,");
+            throw error("Error: parseParam expected ( ) or ,");
         }
 
         return param;
@@ -625,14 +452,16 @@ public class CMinusParser implements Parser {
          * Follow(local-declarations) → { “}”, ID, NUM, (, ;, {, if, while, return }
          */
         ArrayList <Decl> localDecls = new ArrayList < Decl > ();
-        Token temp;
 
         while (checkToken(TokenType.INT_TOKEN)) {
-            matchToken(TokenType.INT_TOKEN);
-            temp = matchToken(TokenType.IDENT_TOKEN);
-            String name = (String) temp.getData();
-            Decl decl = parseVarDecl(name);
-            localDecls.add(decl);
+            try {
+                matchToken(TokenType.INT_TOKEN);
+                String name = matchName();
+                Decl decl = parseVarDecl(name);
+                localDecls.add(decl);
+            } catch (ParseError e) {
+                recover(e, STATEMENT_SYNC);
+            }
         }
 
         return localDecls;
@@ -648,11 +477,16 @@ public class CMinusParser implements Parser {
             || checkToken(TokenType.NUM_TOKEN)
             || checkToken(TokenType.LEFT_PAREN_TOKEN)
             || checkToken(TokenType.SEMI_TOKEN)
+            || checkToken(TokenType.LEFT_BRACE_TOKEN)
             || checkToken(TokenType.IF_TOKEN)
             || checkToken(TokenType.WHILE_TOKEN)
             || checkToken(TokenType.RETURN_TOKEN)) {
-            Statement S = parseStatement();
-            SL.add(S);
+            try {
+                Statement S = parseStatement();
+                SL.add(S);
+            } catch (ParseError e) {
+                recover(e, STATEMENT_SYNC);
+            }
         }
 
         return SL;
@@ -683,7 +517,7 @@ public class CMinusParser implements Parser {
             S = parseReturnStmt();
         } 
         else {
-            throw new Exception("Error: parseStatement expects beginning of statement.");
+            throw error("Error: parseStatement expects beginning of statement.");
         }
 
         return S;
@@ -706,7 +540,7 @@ public class CMinusParser implements Parser {
             matchToken(TokenType.SEMI_TOKEN);
         } 
         else {
-            throw new Exception("Error: parseExpressionStmt expected ID, NUM, (, or ;");
+            throw error("Error: parseExpressionStmt expected ID, NUM, (, or ;");
         }
 
         return ES;
@@ -768,7 +602,7 @@ public class CMinusParser implements Parser {
         || checkToken(TokenType.LEFT_PAREN_TOKEN)) {
             RS = new ReturnStmt(parseExpression());
         } else if (!checkToken(TokenType.SEMI_TOKEN)){
-            throw new Exception("Error: return statement expected ID, NUM, ( or ;");
+            throw error("Error: return statement expected ID, NUM, ( or ;");
         }
 
         matchToken(TokenType.SEMI_TOKEN);
@@ -777,238 +611,66 @@ public class CMinusParser implements Parser {
     }
 
     private Expression parseExpression() throws Exception {
-        /* expression → ID expression’ | NUM simple-expression’ | (expression) simple-expression’
+        /* expression → var = expression | simple-expression
+         * simple-expression → additive-expression [relop additive-expression]
+         * additive-expression → term {addop term}
+         * term → factor {mulop factor}
          * First(expression) → { ID, NUM, ( }
          * Follow(expression) → { ;, ), ], “,” }
          */
 
-        Expression E = null;
-
-        if (checkToken(TokenType.IDENT_TOKEN)) {
-            String ID = (String) scanner.getNextToken().getData();
-            E = parseExpression2(ID);
-        } 
-        else if (checkToken(TokenType.NUM_TOKEN)) {
-            int num = (int) scanner.getNextToken().getData();
-            E = parseSimpleExpr2(new NumExpression(num));
-            if (E == null) {
-                E = new NumExpression(num);
-            }
-        } 
-        else if (checkToken(TokenType.LEFT_PAREN_TOKEN)) {
-            matchToken(TokenType.LEFT_PAREN_TOKEN);
-            E = parseExpression();
-            matchToken(TokenType.RIGHT_PAREN_TOKEN);
-        } 
-        else {
-            throw new Exception("Syntax error: expression expects ID, NUM, or (.");
-        }
-        
-        return E;
-    }
-    private Expression parseExpression2(String ID) throws Exception {
-        /* expression’ → = expression | "["expression"]" expression’’ | (args) simple-expression’ | simple-expression’
-         * First(expression’) → { =, [, (, ε, *, /, +, -, <, <=, >, >=, ==, != }
-         * Follow(expression’) → { ;, ), ], “,” }
-         */
-
-        Expression E2 = null;
-
-        if (checkToken(TokenType.ASSIGN_TOKEN)) {
-            matchToken(TokenType.ASSIGN_TOKEN);
-            VarExpression LHS = new VarExpression(ID);
-            Expression RHS = parseExpression();
-            E2 = new AssignExpression(LHS, RHS);
-        } 
-        else if (checkToken(TokenType.LEFT_BRACKET_TOKEN)) {
-            matchToken(TokenType.LEFT_BRACKET_TOKEN);
-            Expression index = parseExpression();
-            matchToken(TokenType.RIGHT_BRACKET_TOKEN);
-
-            VarExpression LHS = new VarExpression(ID, index);
-            Expression E3 = parseExpression3(LHS);
-
-            // EDIT : not too sure about these lines
-            E2 = LHS;
-            if (E3 != null) {
-                E2 = E3;
-            }
-        } 
-        else if (checkToken(TokenType.LEFT_PAREN_TOKEN)) {
-            E2 = parseVarCall(new VarExpression(ID));
-        } 
-        else if (checkToken(TokenType.MULT_TOKEN) 
-            || checkToken(TokenType.DIVIDE_TOKEN) 
-            || checkToken(TokenType.PLUS_TOKEN) 
-            || checkToken(TokenType.MINUS_TOKEN) 
-            || checkToken(TokenType.LESS_EQUAL_TOKEN) 
-            || checkToken(TokenType.LESS_TOKEN) 
-            || checkToken(TokenType.GREATER_TOKEN) 
-            || checkToken(TokenType.GREATER_EQUAL_TOKEN) 
-            || checkToken(TokenType.EQUAL_TOKEN) 
-            || checkToken(TokenType.NOT_EQUAL_TOKEN) 
-            || checkToken(TokenType.IDENT_TOKEN) 
-            || checkToken(TokenType.NUM_TOKEN)) {
-            E2 = parseSimpleExpr2(new VarExpression(ID));
-        } 
-        else if (checkToken(TokenType.SEMI_TOKEN) 
-            || checkToken(TokenType.RIGHT_PAREN_TOKEN) 
-            || checkToken(TokenType.COMMA_TOKEN)
-            || checkToken(TokenType.RIGHT_BRACKET_TOKEN)) {
-            E2 = new VarExpression(ID);
-        } 
-        else {
-            throw new Exception("Syntax error: expression' expects = [ or (.");
-        }
-
-        return E2;
-    }
-    private Expression parseExpression3(VarExpression LHS) throws Exception {
-        /* expression’’ → = expression | simple-expression’
-         * First(expression’’) → {  =, ε, *, /, +, -, <, <=, >, >=, ==, !=  }
-         * Follow(expression’’) → { ;, ), ], “,” }
-         */
-
-        Expression E3 = LHS;
-
-        if (checkToken(TokenType.ASSIGN_TOKEN)) {
-            matchToken(TokenType.ASSIGN_TOKEN);
-
-            Expression RHS = parseExpression();
-            E3 = new AssignExpression(LHS, RHS);
-        } 
-        else if (checkToken(TokenType.MULT_TOKEN) 
-            || checkToken(TokenType.DIVIDE_TOKEN)
-            || checkToken(TokenType.PLUS_TOKEN)
-            || checkToken(TokenType.MINUS_TOKEN)
-            || checkToken(TokenType.LESS_TOKEN)
-            || checkToken(TokenType.LESS_EQUAL_TOKEN)
-            || checkToken(TokenType.GREATER_TOKEN)
-            || checkToken(TokenType.GREATER_EQUAL_TOKEN)
-            || checkToken(TokenType.EQUAL_TOKEN)
-            || checkToken(TokenType.NOT_EQUAL_TOKEN)) {
-            E3 = parseSimpleExpr2(LHS);
-        }
-        else if (!(checkToken(TokenType.SEMI_TOKEN) 
-            || checkToken(TokenType.RIGHT_PAREN_TOKEN) 
-            || checkToken(TokenType.COMMA_TOKEN)
-            || checkToken(TokenType.RIGHT_BRACKET_TOKEN))) {
-            throw new Exception("Error: expression'' expects an operator.");
+        if (!(checkToken(TokenType.IDENT_TOKEN)
+            || checkToken(TokenType.NUM_TOKEN)
+            || checkToken(TokenType.LEFT_PAREN_TOKEN))) {
+            throw error("Syntax error: expression expects ID, NUM, or (.");
         }
 
-        return E3;
-    }
-    private Expression parseSimpleExpr2(Expression LHS) throws Exception {
-        /* simple-expression’ → additive-expression’ [relop additive expression]
-         * First(simple-expression’) → { ε, *, /, +, -, <, <=, >, >=, ==, != }
-         * Follow(simple-expression’) → { ;, ), ], “,” }
-         */
-        
-        Expression SE2 = LHS;
-        
-        if (checkToken(TokenType.MULT_TOKEN) 
-        || checkToken(TokenType.DIVIDE_TOKEN) 
-        || checkToken(TokenType.PLUS_TOKEN) 
-        || checkToken(TokenType.MINUS_TOKEN)) {
-            SE2 = parseAdditiveExpr2(LHS);
-        }
-        if (checkToken(TokenType.GREATER_EQUAL_TOKEN) 
-        || checkToken(TokenType.GREATER_TOKEN) 
-        || checkToken(TokenType.EQUAL_TOKEN) 
-        || checkToken(TokenType.NOT_EQUAL_TOKEN) 
-        || checkToken(TokenType.LESS_EQUAL_TOKEN) 
-        || checkToken(TokenType.LESS_TOKEN)) {
-            TokenType op = scanner.getNextToken().getType();
-            Expression RHS = parseAdditiveExpr();
-            SE2 = new BinaryExpression(SE2, op, RHS);
-        }
+        // Only a variable as it is written, not in ( ), can be assigned to
+        boolean variable = checkToken(TokenType.IDENT_TOKEN);
+        Expression LHS = parseFactor();
+        variable = variable && LHS instanceof VarExpression;
 
-        if(!(checkToken(TokenType.SEMI_TOKEN) 
-        || checkToken(TokenType.RIGHT_PAREN_TOKEN) 
-        || checkToken(TokenType.RIGHT_BRACKET_TOKEN)
-        || checkToken(TokenType.COMMA_TOKEN))){
-            throw new Exception("Error: simple-expression' expected ; ) ] or ,");
-        }
-        
-        return SE2;
+        return parseOperators(LHS, variable, ASSIGN_LEVEL);
     }
-    private Expression parseAdditiveExpr() throws Exception {
-        /* additive-expression → term {addop term}
-         * First(additive-expression) → { (, ID, NUM }
-         * Follow(additive-expression) → { ;, ), ], “,” }
+    private Expression parseOperators(Expression inLHS, boolean variable, int minLevel) throws Exception {
+        /* Operators of level minLevel and up after LHS, each with the factors after it
+         * First → { =, *, /, +, -, <, <=, >, >=, ==, != }
+         * Follow → { ;, ), ], “,” }
          */
 
-        Expression LHS = parseTerm();
-        
-        while (checkToken(TokenType.PLUS_TOKEN) 
-            || checkToken(TokenType.MINUS_TOKEN)) {
-            TokenType op = scanner.getNextToken().getType();
-            Expression RHS = parseTerm();
-            LHS = new BinaryExpression(LHS, op, RHS);
-        }
-        
-        return LHS;
-    }
+        Expression LHS = inLHS;
+        int level = PRECEDENCE[tokens.kind()];
 
-    private Expression parseAdditiveExpr2(Expression inLHS) throws Exception {
-        /* additive-expression’ → term’ {addop term}
-         * First(additive-expression’) → { ε, *, /, +, - }
-         * Follow(additive-expression’) → { <, <=, >, >=, ==, !=, ;, ), ], “,” }
-         */
+        while (level >= minLevel && level > 0) {
+            if (level == ASSIGN_LEVEL) {
+                if (!variable) {
+                    throw error("Syntax error: only a variable can be assigned to.");
+                }
+                matchToken(TokenType.ASSIGN_TOKEN);
+                Expression RHS = parseExpression();
+                return new AssignExpression((VarExpression) LHS, RHS);
+            }
 
-        Expression LHS = inLHS;
-        Expression newLHS = parseTerm2(LHS);
-        
-        if (newLHS != null) {
-            LHS = newLHS;
-        }
-        while (checkToken(TokenType.PLUS_TOKEN) 
-            || checkToken(TokenType.MINUS_TOKEN)) {
-            TokenType op = scanner.getNextToken().getType();
-            Expression RHS = parseTerm();
+            // Everything that binds tighter than op belongs to its right side
+            TokenType op = advanceToken();
+            Expression RHS = parseOperators(parseFactor(), false, level + 1);
             LHS = new BinaryExpression(LHS, op, RHS);
-        }
-        
-        return LHS;
-    }
-    private Expression parseTerm() throws Exception {
-        /* term → factor {mulop factor}
-         * First(term) → { (, ID, NUM }
-         * Follow(term) → { +, -, <, <=, >, >=, ==, !=, ;, ), ], “,” }
-         */
+            variable = false;
 
-        Expression LHS = parseFactor();
-        
-        while (checkToken(TokenType.MULT_TOKEN) 
-            || checkToken(TokenType.DIVIDE_TOKEN)) {
-            TokenType op = scanner.getNextToken().getType();
-            Expression RHS = parseFactor();
-            LHS = new BinaryExpression(LHS, op, RHS);
+            // Relops do not chain, a < b < c is an error after a < b
+            if (level == RELOP_LEVEL) {
+                break;
+            }
+            level = PRECEDENCE[tokens.kind()];
         }
-        
-        return LHS;
-    }
-    private Expression parseTerm2(Expression inLHS) throws Exception {
-        /* term’ → {mulop factor}
-         * First(term’) → { ε. *, / }
-         * Follow(term’) → { +, -, <, <=, >, >=, ==, !=, ;, ), ], “,” }
-         */
 
-        Expression LHS = inLHS;
-        
-        while (checkToken(TokenType.MULT_TOKEN) 
-            || checkToken(TokenType.DIVIDE_TOKEN)) {
-            TokenType op = scanner.getNextToken().getType();
-            Expression RHS = parseFactor();
-            LHS = new BinaryExpression(LHS, op, RHS);
-        }
-        
         return LHS;
     }
     private Expression parseFactor() throws Exception {
         /* factor → “(” expression “)” | ID varcall | NUM
+         * varcall → “(“ args “)” | “[“ expression “]” | ε
          * First(factor) → { (, ID, NUM }
-         * Follow(factor) → { *, /, +, -, <, <=, >, >=, ==, !=, ;, ), ], “,” }
+         * Follow(factor) → { =, *, /, +, -, <, <=, >, >=, ==, !=, ;, ), ], “,” }
          */
 
         Expression F = null;
@@ -1019,60 +681,31 @@ public class CMinusParser implements Parser {
             matchToken(TokenType.RIGHT_PAREN_TOKEN);
         } 
         else if (checkToken(TokenType.IDENT_TOKEN)) {
-            String ID = (String) scanner.getNextToken().getData();
-            F = parseVarCall(new VarExpression(ID));
+            VarExpression ID = new VarExpression(matchName());
+            F = ID;
+            if (checkToken(TokenType.LEFT_PAREN_TOKEN)) {
+                matchToken(TokenType.LEFT_PAREN_TOKEN);
+                ArrayList < Expression > args = parseArgs();
+                matchToken(TokenType.RIGHT_PAREN_TOKEN);
+                F = new CallExpression(ID, args);
+            } 
+            else if (checkToken(TokenType.LEFT_BRACKET_TOKEN)) {
+                matchToken(TokenType.LEFT_BRACKET_TOKEN);
+                Expression index = parseExpression();
+                matchToken(TokenType.RIGHT_BRACKET_TOKEN);
+                F = new VarExpression(ID.getVar(), index);
+            }
         } 
         else if (checkToken(TokenType.NUM_TOKEN)) {
-            int NUM = (int) scanner.getNextToken().getData();
+            int NUM = matchNum();
             F = new NumExpression(NUM);
         }
         else {
-            throw new Exception("Error: parseFactor expected ( ID or NUM");
+            throw error("Error: parseFactor expected ( ID or NUM");
         }
         
         return F;
     }
-    private Expression parseVarCall(VarExpression ID) throws Exception {
-        /* varcall → “(“ args “)” | “[“ expression “]” | ε
-         * First(varcall) → { (, [, ε }
-         * Follow(varcall) → { *, /, +, -, <, <=, >, >=, ==, !=, ;, ), ], “,”  }
-         */
-
-        Expression varcall = null;
-        
-        if (checkToken(TokenType.LEFT_PAREN_TOKEN)) {
-            matchToken(TokenType.LEFT_PAREN_TOKEN);
-            ArrayList < Expression > args = parseArgs();
-            matchToken(TokenType.RIGHT_PAREN_TOKEN);
-            varcall = new CallExpression(ID, args);
-        } 
-        else if (checkToken(TokenType.LEFT_BRACKET_TOKEN)) {
-            matchToken(TokenType.LEFT_BRACKET_TOKEN);
-            varcall = parseExpression();
-            matchToken(TokenType.RIGHT_BRACKET_TOKEN);
-        } 
-        else if (checkToken(TokenType.MULT_TOKEN) 
-            || checkToken(TokenType.DIVIDE_TOKEN) 
-            || checkToken(TokenType.PLUS_TOKEN) 
-            || checkToken(TokenType.MINUS_TOKEN) 
-            || checkToken(TokenType.LESS_TOKEN) 
-            || checkToken(TokenType.GREATER_TOKEN) 
-            || checkToken(TokenType.LESS_EQUAL_TOKEN) 
-            || checkToken(TokenType.GREATER_EQUAL_TOKEN) 
-            || checkToken(TokenType.EQUAL_TOKEN) 
-            || checkToken(TokenType.NOT_EQUAL_TOKEN) 
-            || checkToken(TokenType.SEMI_TOKEN) 
-            || checkToken(TokenType.RIGHT_PAREN_TOKEN) 
-            || checkToken(TokenType.RIGHT_BRACKET_TOKEN) 
-            || checkToken(TokenType.COMMA_TOKEN)) {
-            varcall = ID;
-        }
-        else {
-            throw new Exception("Error: parseVarCall expected ( [ ] ) ; , or an operator.");
-        }
-        
-        return varcall;
-    }
     private ArrayList <Expression> parseArgs() throws Exception {
         /* args → arg-list | ε
          * First(args) → { ID, NUM, (, ε }
@@ -1086,7 +719,7 @@ public class CMinusParser implements Parser {
         || checkToken(TokenType.LEFT_PAREN_TOKEN)) {
             args = parseArgList();
         } else if (!checkToken(TokenType.RIGHT_PAREN_TOKEN)){
-            throw new Exception("Error: parseArgs expects )");
+            throw error("Error: parseArgs expects )");
         }
         
         return args;
@@ -1112,8 +745,7 @@ public class CMinusParser implements Parser {
     }
 
     /* Print AST */
-    public void printTree(FileWriter file) throws IOException {
-        outputFile = file;
-        program.print();
+    public void printTree(Writer out) throws IOException {
+        new AstPrinter(out).print(program);
     }
 }
\ No newline at end of file
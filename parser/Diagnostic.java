@@ -0,0 +1,38 @@
+package parser;
+
+public class Diagnostic {
+    /*
+        One syntax error found by a recovering parse: what was wrong and
+        where. toString() is the message the parser would have thrown.
+     */
+
+    private final String message;
+    private final int line;
+    private final int column;
+
+    public Diagnostic(String message, int line, int column) {
+        this.message = message;
+        this.line = line;
+        this.column = column;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    // Line and column of the token the error was found at, 0 when not known
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String toString() {
+        if (line > 0) {
+            return message + " (line " + line + ", column " + column + ")";
+        }
+        return message;
+    }
+}
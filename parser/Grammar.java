@@ -0,0 +1,288 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import scanner.Token.TokenType;
+
+public class Grammar {
+    /*
+        A context-free grammar over the scanner's tokens, and the LL(1)
+        parse table computed from it.
+
+        Symbols are ints:
+            terminals       a TokenType ordinal, below NONTERMINAL
+            nonterminals    NONTERMINAL + n, named when the grammar is made
+            actions         ACTION and up, ignored by the grammar and left
+                            in the productions for the parser to run
+        A set of terminals is a long with bit ordinal set, so FIRST, FOLLOW
+        and predict sets are a word each, and a union is an or.
+
+        build() computes nullable, FIRST and FOLLOW by iterating to a fixed
+        point, then fills the table with each production's predict set:
+        FIRST of its right side, plus FOLLOW of its left side when the
+        right side can be empty. Two productions predicted by the same
+        token make the grammar not LL(1), which build() reports, unless
+        one of them was added with prefer() (the dangling else).
+     */
+
+    public static final int NONTERMINAL = 64;
+    public static final int ACTION = 1 << 16;
+
+    private static final int TERMINALS = TokenType.values().length;
+
+    private String[] names;
+
+    // Productions in the order they were added: left side, right side, preferred
+    private ArrayList < Integer > lefts = new ArrayList < Integer > ();
+    private ArrayList < int[] > rights = new ArrayList < int[] > ();
+    private ArrayList < Boolean > preferred = new ArrayList < Boolean > ();
+
+    // Filled by build()
+    private boolean[] nullable;
+    private long[] first;
+    private long[] follow;
+    private long[] predict;
+    private int[] table;
+    private int[][] rightArrays;
+
+    // names[n] is the name of nonterminal NONTERMINAL + n
+    public Grammar(String... names) {
+        this.names = names;
+        if (TERMINALS > NONTERMINAL) {
+            throw new IllegalStateException("too many token types for a long: " + TERMINALS);
+        }
+    }
+
+    // left → symbols, where a symbol is a TokenType, a nonterminal or an action
+    public int rule(int left, Object... symbols) {
+        return add(left, symbols, false);
+    }
+
+    // Like rule(), but this production wins a conflict with another
+    public int prefer(int left, Object... symbols) {
+        return add(left, symbols, true);
+    }
+
+    private int add(int left, Object[] symbols, boolean prefer) {
+        checkNonterminal(left);
+        int[] right = new int[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i] instanceof TokenType) {
+                right[i] = ((TokenType) symbols[i]).ordinal();
+            } else {
+                right[i] = (Integer) symbols[i];
+                if (right[i] < ACTION) {
+                    checkNonterminal(right[i]);
+                }
+            }
+        }
+        lefts.add(left);
+        rights.add(right);
+        preferred.add(prefer);
+        return lefts.size() - 1;
+    }
+
+    private void checkNonterminal(int symbol) {
+        if (symbol < NONTERMINAL || symbol >= NONTERMINAL + names.length) {
+            throw new IllegalArgumentException("not a nonterminal: " + symbol);
+        }
+    }
+
+    public Grammar build() {
+        int count = names.length;
+        int productions = lefts.size();
+        rightArrays = rights.toArray(new int[productions][]);
+        nullable = new boolean[count];
+        first = new long[count];
+        follow = new long[count];
+        predict = new long[productions];
+
+        // nullable and FIRST
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < productions; p++) {
+                int left = lefts.get(p) - NONTERMINAL;
+                long set = first(rightArrays[p], 0);
+                if ((first[left] | set) != first[left]) {
+                    first[left] |= set;
+                    changed = true;
+                }
+                if (!nullable[left] && nullable(rightArrays[p], 0)) {
+                    nullable[left] = true;
+                    changed = true;
+                }
+            }
+        }
+
+        // FOLLOW: what can come after each nonterminal on a right side
+        follow[0] = 1L << TokenType.EOF_TOKEN.ordinal();
+        changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < productions; p++) {
+                int[] right = rightArrays[p];
+                int left = lefts.get(p) - NONTERMINAL;
+                for (int i = 0; i < right.length; i++) {
+                    if (!isNonterminal(right[i])) {
+                        continue;
+                    }
+                    int n = right[i] - NONTERMINAL;
+                    long set = first(right, i + 1);
+                    if (nullable(right, i + 1)) {
+                        set |= follow[left];
+                    }
+                    if ((follow[n] | set) != follow[n]) {
+                        follow[n] |= set;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        // The table, row by nonterminal and column by token
+        table = new int[count * NONTERMINAL];
+        Arrays.fill(table, -1);
+        for (int p = 0; p < productions; p++) {
+            int left = lefts.get(p) - NONTERMINAL;
+            predict[p] = first(rightArrays[p], 0);
+            if (nullable(rightArrays[p], 0)) {
+                predict[p] |= follow[left];
+            }
+            for (int t = 0; t < TERMINALS; t++) {
+                if ((predict[p] & (1L << t)) == 0) {
+                    continue;
+                }
+                int cell = left * NONTERMINAL + t;
+                int other = table[cell];
+                if (other < 0 || preferred.get(p) && !preferred.get(other)) {
+                    table[cell] = p;
+                } else if (!preferred.get(other) || preferred.get(p)) {
+                    throw new IllegalStateException("grammar is not LL(1): " + names[left] + " has two productions for "
+                        + TokenType.values()[t]);
+                }
+            }
+        }
+        return this;
+    }
+
+    // FIRST of right[from..]
+    private long first(int[] right, int from) {
+        long set = 0;
+        for (int i = from; i < right.length; i++) {
+            int symbol = right[i];
+            if (symbol >= ACTION) {
+                continue;
+            }
+            if (symbol < NONTERMINAL) {
+                return set | (1L << symbol);
+            }
+            set |= first[symbol - NONTERMINAL];
+            if (!nullable[symbol - NONTERMINAL]) {
+                return set;
+            }
+        }
+        return set;
+    }
+
+    // Whether right[from..] can derive nothing
+    private boolean nullable(int[] right, int from) {
+        for (int i = from; i < right.length; i++) {
+            int symbol = right[i];
+            if (symbol < NONTERMINAL || (symbol < ACTION && !nullable[symbol - NONTERMINAL])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean isTerminal(int symbol) {
+        return symbol < NONTERMINAL;
+    }
+
+    public static boolean isNonterminal(int symbol) {
+        return symbol >= NONTERMINAL && symbol < ACTION;
+    }
+
+    public static boolean isAction(int symbol) {
+        return symbol >= ACTION;
+    }
+
+    // The production to expand nonterminal by when token is next, -1 if none
+    public int predict(int nonterminal, int token) {
+        return table[(nonterminal - NONTERMINAL) * NONTERMINAL + token];
+    }
+
+    public int[] right(int production) {
+        return rightArrays[production];
+    }
+
+    public int left(int production) {
+        return lefts.get(production);
+    }
+
+    public String name(int nonterminal) {
+        return names[nonterminal - NONTERMINAL];
+    }
+
+    public long first(int nonterminal) {
+        return first[nonterminal - NONTERMINAL];
+    }
+
+    public long follow(int nonterminal) {
+        return follow[nonterminal - NONTERMINAL];
+    }
+
+    public boolean nullable(int nonterminal) {
+        return nullable[nonterminal - NONTERMINAL];
+    }
+
+    // Every token with a production for nonterminal
+    public long expected(int nonterminal) {
+        long set = 0;
+        for (int p = 0; p < predict.length; p++) {
+            if (lefts.get(p) == nonterminal) {
+                set |= predict[p];
+            }
+        }
+        return set;
+    }
+
+    public int productionCount() {
+        return lefts.size();
+    }
+
+    // The tokens of set, in TokenType order
+    public static String describe(long set) {
+        StringBuilder text = new StringBuilder();
+        for (TokenType type : TokenType.values()) {
+            if ((set & (1L << type.ordinal())) != 0) {
+                if (text.length() > 0) {
+                    text.append(", ");
+                }
+                text.append(type);
+            }
+        }
+        return text.toString();
+    }
+
+    // The grammar with one production per line, each followed by its predict set
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int p = 0; p < lefts.size(); p++) {
+            text.append(name(lefts.get(p))).append(" ->");
+            for (int symbol : rightArrays == null ? rights.get(p) : rightArrays[p]) {
+                if (isTerminal(symbol)) {
+                    text.append(' ').append(TokenType.values()[symbol]);
+                } else if (isNonterminal(symbol)) {
+                    text.append(' ').append(name(symbol));
+                }
+            }
+            if (predict != null) {
+                text.append("    { ").append(describe(predict[p])).append(" }");
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
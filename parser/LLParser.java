@@ -0,0 +1,314 @@
+package parser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import ast.AssignExpression;
+import ast.AstPrinter;
+import ast.BinaryExpression;
+import ast.CallExpression;
+import ast.CompoundStmt;
+import ast.Decl;
+import ast.Expression;
+import ast.ExpressionStmt;
+import ast.FunDecl;
+import ast.IterationStmt;
+import ast.NumExpression;
+import ast.Param;
+import ast.Program;
+import ast.ReturnStmt;
+import ast.SelectionStmt;
+import ast.Statement;
+import ast.VarDecl;
+import ast.VarExpression;
+import scanner.Scanner;
+import scanner.Token.TokenType;
+import scanner.TokenStream;
+
+public class LLParser implements Parser {
+    /*
+        Table-driven LL(1) parser for C-, run from the parse table of
+        CMinusGrammar instead of hand-written parse functions.
+
+        The parse is a loop over a stack of grammar symbols, starting from
+        program. A terminal on top must be the next token. A nonterminal
+        is replaced by the right side of the production that the table
+        gives for it and the next token, so every prediction is one array
+        lookup. An action builds an AST node from the values of what was
+        just parsed, on a second stack, and pushes it there in their place.
+
+        The nodes are the same ast classes CMinusParser makes, so the tree
+        prints the same way. Both stacks live on the heap and grow as needed, so
+        deep nesting costs no Java stack: thousands of nested blocks,
+        if/while statements or parentheses parse where CMinusParser would
+        overflow the thread's stack. Nesting is still bounded, by maxDepth
+        statements and expressions open at once, so a runaway input is a
+        ParseError rather than an OutOfMemoryError. Expanding a statement
+        or expression pushes LEAVE under its right side, and depth goes
+        down again when LEAVE comes off the stack.
+
+        Unlike CMinusParser this accepts exactly the grammar: a block may
+        hold a nested block, ( expression ) and calls may be followed by
+        operators, and a[i] inside an operand keeps its array name.
+        Syntax errors are thrown as a ParseError. A token without a
+        production is reported with every token that could have come
+        there, taken from the table.
+     */
+
+    private static final Grammar GRAMMAR = CMinusGrammar.GRAMMAR;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    public static final int DEFAULT_MAX_DEPTH = 100000;
+
+    // Below every symbol, marks the end of a statement or expression
+    private static final int LEAVE = -1;
+
+    private TokenStream tokens;
+    private ParseError failure = new ParseError();
+
+    private int[] symbols = new int[64];
+    private int symbolCount;
+    private Object[] values = new Object[64];
+    private int valueCount;
+
+    // Statements and expressions open on the symbol stack, at most maxDepth
+    private int depth;
+    private int maxDepth;
+
+    public Program program;
+
+    public LLParser(Scanner inScanner) throws Exception {
+        this(TokenStream.of(inScanner), DEFAULT_MAX_DEPTH);
+    }
+
+    public LLParser(Scanner inScanner, int maxDepth) throws Exception {
+        this(TokenStream.of(inScanner), maxDepth);
+    }
+
+    public LLParser(TokenStream inTokens) throws Exception {
+        this(inTokens, DEFAULT_MAX_DEPTH);
+    }
+
+    public LLParser(TokenStream inTokens, int maxDepth) throws Exception {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        tokens = inTokens;
+        this.maxDepth = maxDepth;
+        program = parseProgram();
+    }
+
+    public Program parseProgram() throws Exception {
+        symbolCount = 0;
+        valueCount = 0;
+        depth = 0;
+        pushSymbol(TokenType.EOF_TOKEN.ordinal());
+        pushSymbol(CMinusGrammar.PROGRAM);
+
+        while (symbolCount > 0) {
+            int symbol = symbols[--symbolCount];
+            if (symbol == LEAVE) {
+                depth--;
+            } else if (Grammar.isTerminal(symbol)) {
+                int kind = tokens.kind();
+                if (kind != symbol) {
+                    throw unexpected(TYPES[symbol]);
+                }
+                if ((CMinusGrammar.VALUE_TOKENS & (1L << kind)) != 0) {
+                    pushValue(value(kind));
+                }
+                tokens.advance();
+            } else if (Grammar.isNonterminal(symbol)) {
+                int production = GRAMMAR.predict(symbol, tokens.kind());
+                if (production < 0) {
+                    throw error("Syntax error: " + GRAMMAR.name(symbol) + " expects "
+                        + Grammar.describe(GRAMMAR.expected(symbol)));
+                }
+                if (symbol == CMinusGrammar.STATEMENT || symbol == CMinusGrammar.EXPRESSION) {
+                    if (depth == maxDepth) {
+                        throw error("Error: More than " + maxDepth + " statements and expressions nested");
+                    }
+                    depth++;
+                    pushSymbol(LEAVE);
+                }
+                int[] right = GRAMMAR.right(production);
+                for (int i = right.length - 1; i >= 0; i--) {
+                    pushSymbol(right[i]);
+                }
+            } else {
+                act(symbol);
+            }
+        }
+
+        return (Program) popValue();
+    }
+
+    // What a matched token puts on the value stack
+    private Object value(int kind) {
+        if (kind == TokenType.IDENT_TOKEN.ordinal()) {
+            return tokens.name();
+        }
+        if (kind == TokenType.NUM_TOKEN.ordinal()) {
+            return tokens.intValue();
+        }
+        return TYPES[kind];
+    }
+
+    // Replace the values an action describes with the node it makes
+    @SuppressWarnings("unchecked")
+    private void act(int action) {
+        switch (action) {
+            case CMinusGrammar.NEW_LIST:
+                pushValue(new ArrayList < Object > ());
+                break;
+            case CMinusGrammar.ADD: {
+                Object item = popValue();
+                ((ArrayList < Object >) values[valueCount - 1]).add(item);
+                break;
+            }
+            case CMinusGrammar.NONE:
+                pushValue(null);
+                break;
+            case CMinusGrammar.VAR:
+                pushValue(new VarExpression((String) popValue()));
+                break;
+            case CMinusGrammar.NUM:
+                pushValue(new NumExpression((Integer) popValue()));
+                break;
+            case CMinusGrammar.INDEX: {
+                Expression index = (Expression) popValue();
+                VarExpression var = (VarExpression) popValue();
+                pushValue(new VarExpression(var.getVar(), index));
+                break;
+            }
+            case CMinusGrammar.CALL: {
+                ArrayList < Expression > args = (ArrayList < Expression >) popValue();
+                VarExpression var = (VarExpression) popValue();
+                pushValue(new CallExpression(var, args));
+                break;
+            }
+            case CMinusGrammar.ASSIGN: {
+                Expression RHS = (Expression) popValue();
+                VarExpression LHS = (VarExpression) popValue();
+                pushValue(new AssignExpression(LHS, RHS));
+                break;
+            }
+            case CMinusGrammar.BINARY: {
+                Expression RHS = (Expression) popValue();
+                TokenType op = (TokenType) popValue();
+                Expression LHS = (Expression) popValue();
+                pushValue(new BinaryExpression(LHS, op, RHS));
+                break;
+            }
+            case CMinusGrammar.TYPE_VOID:
+                pushValue("void");
+                break;
+            case CMinusGrammar.TYPE_INT:
+                pushValue("int");
+                break;
+            case CMinusGrammar.MAKE_FUN_DECL: {
+                CompoundStmt content = (CompoundStmt) popValue();
+                ArrayList < Param > params = (ArrayList < Param >) popValue();
+                String returnType = (String) popValue();
+                String name = (String) popValue();
+                pushValue(new FunDecl(returnType, new VarExpression(name), params, content));
+                break;
+            }
+            case CMinusGrammar.MAKE_VAR_DECL:
+                pushValue(new VarDecl(new VarExpression((String) popValue())));
+                break;
+            case CMinusGrammar.MAKE_ARRAY_DECL: {
+                int size = (Integer) popValue();
+                String name = (String) popValue();
+                pushValue(new VarDecl(new VarExpression(name, new NumExpression(size))));
+                break;
+            }
+            case CMinusGrammar.MAKE_PARAM:
+                pushValue(new Param(new VarExpression((String) popValue())));
+                break;
+            case CMinusGrammar.MAKE_ARRAY_PARAM:
+                pushValue(new Param(new VarExpression((String) popValue(), true)));
+                break;
+            case CMinusGrammar.MAKE_COMPOUND: {
+                ArrayList < Statement > statements = (ArrayList < Statement >) popValue();
+                ArrayList < Decl > localDecls = (ArrayList < Decl >) popValue();
+                pushValue(new CompoundStmt(localDecls, statements));
+                break;
+            }
+            case CMinusGrammar.MAKE_EXPRESSION_STMT:
+                pushValue(new ExpressionStmt((Expression) popValue()));
+                break;
+            case CMinusGrammar.MAKE_IF: {
+                Statement ifSequence = (Statement) popValue();
+                Expression condition = (Expression) popValue();
+                pushValue(new SelectionStmt(condition, ifSequence));
+                break;
+            }
+            case CMinusGrammar.MAKE_IF_ELSE: {
+                Statement elseSequence = (Statement) popValue();
+                Statement ifSequence = (Statement) popValue();
+                Expression condition = (Expression) popValue();
+                pushValue(new SelectionStmt(condition, ifSequence, elseSequence));
+                break;
+            }
+            case CMinusGrammar.MAKE_WHILE: {
+                Statement sequence = (Statement) popValue();
+                Expression condition = (Expression) popValue();
+                pushValue(new IterationStmt(condition, sequence));
+                break;
+            }
+            case CMinusGrammar.MAKE_RETURN:
+                pushValue(new ReturnStmt((Expression) popValue()));
+                break;
+            case CMinusGrammar.MAKE_PROGRAM:
+                pushValue(new Program((ArrayList < Decl >) popValue()));
+                break;
+            default:
+                throw new IllegalStateException("unknown action " + action);
+        }
+    }
+
+    private void pushSymbol(int symbol) {
+        if (symbolCount == symbols.length) {
+            symbols = Arrays.copyOf(symbols, symbols.length * 2);
+        }
+        symbols[symbolCount++] = symbol;
+    }
+
+    private void pushValue(Object value) {
+        if (valueCount == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[valueCount++] = value;
+    }
+
+    private Object popValue() {
+        Object value = values[--valueCount];
+        values[valueCount] = null;
+        return value;
+    }
+
+    // The current token is not the expected one. It is shown as Token.toString() would.
+    private ParseError unexpected(TokenType expected) {
+        TokenType type = TYPES[tokens.kind()];
+        String got = type.toString();
+        if (type == TokenType.IDENT_TOKEN) {
+            got += " " + tokens.name();
+        } else if (type == TokenType.NUM_TOKEN) {
+            got += " " + tokens.intValue();
+        }
+        return error("Error: Unexpected token. Was expecting " + expected.toString() + " but got " + got);
+    }
+
+    // Parse error at the current token, with its line and column when the scanner knows them
+    private ParseError error(String message) {
+        return failure.set(message, tokens.line(), tokens.column());
+    }
+
+    /* Print AST */
+    public void printTree(Writer out) throws IOException {
+        new AstPrinter(out).print(program);
+    }
+}
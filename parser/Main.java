@@ -8,12 +8,27 @@
 
     Design the output format so that it can be easily 
     understood and easily read back in.
+
+    Usage: java parser.Main [-pipelined] [-recover | -table [-maxdepth N]] [input]
+    input defaults to parser/input.txt, and may be gzip or LZ4
+    compressed. The tree is printed to parser/output.txt.
+    With -recover the parse goes on after a syntax error: every
+    error is printed to stderr and the tree holds what parsed.
+    With -table the table-driven LLParser parses instead. Its stack
+    is on the heap, so it takes deeply nested programs; -maxdepth sets
+    how many statements and expressions may be nested, by default
+    LLParser.DEFAULT_MAX_DEPTH.
+    A program nested too deeply for the recursive parser's stack is
+    read again and parsed by LLParser, with a note on stderr.
 */
 
 package parser;
 
 import scanner.CMinusScanner;
-import java.io.FileReader;
+import scanner.CompressedInput;
+import scanner.PipelinedScanner;
+import scanner.Scanner;
+import java.io.InputStreamReader;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileWriter;
@@ -23,22 +38,73 @@ import java.io.FileNotFoundException;
 public class Main {
     public static void main(String[] args) throws FileNotFoundException, IOException, Exception {
 
+        boolean pipelined = false;
+        boolean recover = false;
+        boolean table = false;
+        int maxDepth = LLParser.DEFAULT_MAX_DEPTH;
+        int next = 0;
+        while (next < args.length && args[next].startsWith("-")) {
+            if (args[next].equals("-pipelined")) {
+                pipelined = true;
+            } else if (args[next].equals("-recover")) {
+                recover = true;
+            } else if (args[next].equals("-table")) {
+                table = true;
+            } else if (args[next].equals("-maxdepth") && next + 1 < args.length) {
+                maxDepth = Integer.parseInt(args[++next]);
+            } else {
+                System.err.println("usage: java parser.Main [-pipelined] [-recover | -table [-maxdepth N]] [input]");
+                System.exit(2);
+            }
+            next++;
+        }
+
         // Get the input file that has the C- code
-        File inputFile = new File("parser/input.txt");
-        FileReader codeFile = new FileReader(inputFile);
-        BufferedReader inputReader = new BufferedReader(codeFile);
-        
-        // Create scanner
-        CMinusScanner myScanner = new CMinusScanner(inputReader);
+        File inputFile = new File(next < args.length ? args[next] : "parser/input.txt");
+        Scanner myScanner = openScanner(inputFile, pipelined);
 
         // Get the output file to print into
         FileWriter outputFile = new FileWriter("parser/output.txt"); 
 
         // Create parser
-        CMinusParser myParser = new CMinusParser(myScanner);
+        Parser myParser = null;
+        if (!table) {
+            try {
+                CMinusParser parser = new CMinusParser(myScanner, recover);
+                if (!parser.isNestedTooDeeply()) {
+                    for (Diagnostic diagnostic : parser.getDiagnostics()) {
+                        System.err.println(diagnostic);
+                    }
+                    myParser = parser;
+                }
+            } catch (NestingError e) {
+                // Falls through to LLParser below
+            }
+            if (myParser == null) {
+                System.err.println("Program nested too deeply for the recursive parser, parsing it with LLParser");
+                if (myScanner instanceof PipelinedScanner) {
+                    ((PipelinedScanner) myScanner).close();
+                }
+                myScanner = openScanner(inputFile, pipelined);
+            }
+        }
+        if (myParser == null) {
+            myParser = new LLParser(myScanner, maxDepth);
+        }
         myParser.printTree(outputFile);
 
         // Close output file
         outputFile.close();
     }
+
+    // Scanner for a C- file, decompressing it as it is read if it is compressed.
+    // With pipelined it scans on its own thread while the parser runs.
+    private static Scanner openScanner(File inputFile, boolean pipelined) throws IOException {
+        InputStreamReader codeFile = new InputStreamReader(CompressedInput.open(inputFile));
+        Scanner scanner = new CMinusScanner(new BufferedReader(codeFile));
+        if (pipelined) {
+            scanner = new PipelinedScanner(scanner);
+        }
+        return scanner;
+    }
 }
@@ -0,0 +1,17 @@
+package parser;
+
+public class NestingError extends ParseError {
+    /*
+        The recursive parser ran out of Java stack. Unlike a syntax error
+        it says nothing about the program, only that LLParser, whose stack
+        is on the heap, has to parse it. It has no line and column: the
+        overflow can strike in the middle of reading a token, so the token
+        stream is not asked where it is.
+     */
+
+    private static final long serialVersionUID = 1L;
+
+    public NestingError() {
+        set("Error: Program nested too deeply for the recursive parser, parse it with LLParser", 0, 0);
+    }
+}
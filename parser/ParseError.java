@@ -0,0 +1,53 @@
+package parser;
+
+public class ParseError extends Exception {
+    /*
+        A syntax error. It has no stack trace: filling one in walks every
+        frame of the recursive descent, which costs more than the parse of
+        a small file, and the line and column already say where the error
+        is.
+
+        A parser makes one ParseError and fills it in again for each
+        error, so finding an error allocates nothing but its message. In
+        recovering mode it is only thrown to unwind to the nearest place
+        that can resynchronize, and each error is kept as a Diagnostic.
+     */
+
+    private static final long serialVersionUID = 1L;
+
+    private String message;
+    private int line;
+    private int column;
+
+    public ParseError() {
+        super(null, null, false, false);
+    }
+
+    // Reuse this error for a new message, at line and column (0 when not known)
+    ParseError set(String message, int line, int column) {
+        this.message = message;
+        this.line = line;
+        this.column = column;
+        return this;
+    }
+
+    public String getMessage() {
+        if (line > 0) {
+            return message + " (line " + line + ", column " + column + ")";
+        }
+        return message;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    // A lasting copy of this error, for the diagnostics list
+    public Diagnostic toDiagnostic() {
+        return new Diagnostic(message, line, column);
+    }
+}
@@ -1,10 +1,10 @@
 package parser;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 
-import parser.CMinusParser.Program;
+import ast.Program;
 
 public interface Parser {
     public Program parseProgram() throws Exception;
-    public void printTree(FileWriter outputProgram) throws IOException;
+    public void printTree(Writer outputProgram) throws IOException;
 }
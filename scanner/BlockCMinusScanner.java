@@ -0,0 +1,312 @@
+package scanner;
+
+import scanner.CMinusScanner.StateType;
+import scanner.Token.TokenType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+public class BlockCMinusScanner implements Scanner {
+    /*
+        Same DFA as CMinusScanner, but instead of calling mark/read/reset
+        on a BufferedReader for every character, large blocks are read into
+        a reusable char[] window. The DFA walks the window with a plain index,
+        and a lookahead is undone by stepping the index back one character.
+     */
+
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private Reader inFile;
+    private char[] window;
+    private int pos;
+    private int limit;
+    private Token nextToken;
+    private SymbolTable symbols;
+
+    // Characters of the current identifier or number, and the running hash of an identifier.
+    // A token can span two blocks, so its characters are collected here rather than in the window.
+    private char[] data = new char[64];
+    private int dataLength;
+    private int dataHash;
+
+    // Characters before the window, where the current token starts, and the line starts seen so far
+    private int consumed;
+    private int tokenStart;
+    private LineIndex lines = new LineIndex();
+
+    public BlockCMinusScanner (Reader file) throws IOException {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockCMinusScanner (Reader file, int blockSize) throws IOException {
+        this(file, blockSize, new SymbolTable());
+    }
+
+    public BlockCMinusScanner (Reader file, int blockSize, SymbolTable table) throws IOException {
+        inFile = file;
+        window = new char[blockSize];
+        symbols = table;
+        nextToken = scanToken();
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    public LineIndex getLineIndex() {
+        return lines;
+    }
+
+    public Token getNextToken () {
+        Token returnToken = nextToken;
+        if(nextToken.getType() != TokenType.EOF_TOKEN){
+            try {
+                nextToken = scanToken();
+            } catch (IOException ex) {
+                // Scanner has no checked exceptions, so pass the failure on unchecked
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return returnToken;
+    }
+    public Token viewNextToken(){
+        return nextToken;
+    }
+
+    // Refill the window once every character in it has been used, returns false at end of file
+    private boolean fill() throws IOException {
+        int count = inFile.read(window, 0, window.length);
+        while(count == 0){
+            count = inFile.read(window, 0, window.length);
+        }
+        if(count < 0){
+            return false;
+        }
+        consumed += limit;
+        pos = 0;
+        limit = count;
+        return true;
+    }
+
+    public Token scanToken() throws IOException {
+        // Initialize currentToken and state variables
+        TokenType currentToken = TokenType.ERROR_TOKEN;
+        StateType state = StateType.START;
+
+        char c;
+        dataLength = 0;
+        dataHash = 0;
+
+        // Loop through states (based on DFA)
+        while(state != StateType.DONE) {
+            // Get next character from the window, refilling it when it runs out
+            int at = consumed + pos;
+            int charValue;
+            if(pos < limit || fill()){
+                charValue = window[pos++];
+                if(charValue == '\n'){
+                    lines.addLineStart(consumed + pos);
+                }
+            } else {
+                charValue = -1;
+            }
+            c = (char)charValue;
+
+            // Pushback is always the character just read, so it is still in the window.
+            // At end of file nothing was consumed, so there is nothing to push back.
+            int pushback = (charValue == -1) ? 0 : 1;
+
+            switch(state){
+                case START:
+                    tokenStart = at;
+                    if(Character.isDigit(c)){
+                        addData(c);
+                        state = StateType.INNUM;
+                    } else if (Character.isLetter(c)){
+                        addData(c);
+                        dataHash = SymbolTable.hash(dataHash, c);
+                        state = StateType.INID;
+                    } else if (c == '!'){
+                        state = StateType.INNOT_EQUAL;
+                    } else if (c == '>'){
+                        state = StateType.INGREATER;
+                    } else if (c == '<'){
+                        state = StateType.INLESS;
+                    } else if (c == '='){
+                        state = StateType.INEQUAL;
+                    } else if (c == '/'){
+                        state = StateType.INDIVIDE;
+                    } else if (charValue == -1){
+                        currentToken = TokenType.EOF_TOKEN;
+                        state = StateType.DONE;
+                    } else if (c == ' ' || c == '\t' || c == '\n' || c == '\r'){
+                        // white space: nothing happens
+                    } else {
+                        state = StateType.DONE;
+                        switch(c){
+                            case '+':
+                                currentToken = TokenType.PLUS_TOKEN;
+                                break;
+                            case '-':
+                                currentToken = TokenType.MINUS_TOKEN;
+                                break;
+                            case '*':
+                                currentToken = TokenType.MULT_TOKEN;
+                                break;
+                            case ';':
+                                currentToken = TokenType.SEMI_TOKEN;
+                                break;
+                            case ',':
+                                currentToken = TokenType.COMMA_TOKEN;
+                                break;
+                            case '(':
+                                currentToken = TokenType.LEFT_PAREN_TOKEN;
+                                break;
+                            case ')':
+                                currentToken = TokenType.RIGHT_PAREN_TOKEN;
+                                break;
+                            case '[':
+                                currentToken = TokenType.LEFT_BRACKET_TOKEN;
+                                break;
+                            case ']':
+                                currentToken = TokenType.RIGHT_BRACKET_TOKEN;
+                                break;
+                            case '{':
+                                currentToken = TokenType.LEFT_BRACE_TOKEN;
+                                break;
+                            case '}':
+                                currentToken = TokenType.RIGHT_BRACE_TOKEN;
+                                break;
+                        }
+                    }
+                    break;
+                case INID:
+                    if(Character.isLetter(c)){
+                        addData(c);
+                        dataHash = SymbolTable.hash(dataHash, c);
+                    } else if (Character.isDigit(c)){
+                        state = StateType.INERROR;
+                    } else {
+                        state = StateType.DONE;
+                        currentToken = TokenType.IDENT_TOKEN;
+                        pos -= pushback;
+                    }
+                    break;
+                case INNUM:
+                    if(Character.isDigit(c)){
+                        addData(c);
+                    } else if (Character.isLetter(c)){
+                        state = StateType.INERROR;
+                    } else {
+                        state = StateType.DONE;
+                        currentToken = TokenType.NUM_TOKEN;
+                        pos -= pushback;
+                    }
+                    break;
+                case INDIVIDE:
+                    if(c == '*'){
+                        state = StateType.INCOMMENT;
+                    } else {
+                        state = StateType.DONE;
+                        currentToken = TokenType.DIVIDE_TOKEN;
+                        pos -= pushback;
+                    }
+                    break;
+                case INCOMMENT:
+                    if(c == '*'){
+                        state = StateType.INEND_COMMENT;
+                    } else if (charValue == -1){
+                        // End of file inside a comment
+                        state = StateType.DONE;
+                        currentToken = TokenType.EOF_TOKEN;
+                    }
+                    break;
+                case INEND_COMMENT:
+                    if(c == '/'){
+                        state = StateType.START;
+                    } else if (charValue == -1){
+                        state = StateType.DONE;
+                        currentToken = TokenType.EOF_TOKEN;
+                    } else {
+                        state = StateType.INCOMMENT;
+                    }
+                    break;
+                case INLESS:
+                    state = StateType.DONE;
+                    if(c == '='){
+                        currentToken = TokenType.LESS_EQUAL_TOKEN;
+                    } else {
+                        currentToken = TokenType.LESS_TOKEN;
+                        pos -= pushback;
+                    }
+                    break;
+                case INGREATER:
+                    state = StateType.DONE;
+                    if(c == '='){
+                        currentToken = TokenType.GREATER_EQUAL_TOKEN;
+                    } else {
+                        currentToken = TokenType.GREATER_TOKEN;
+                        pos -= pushback;
+                    }
+                    break;
+                case INEQUAL:
+                    state = StateType.DONE;
+                    if(c == '='){
+                        currentToken = TokenType.EQUAL_TOKEN;
+                    } else {
+                        currentToken = TokenType.ASSIGN_TOKEN;
+                        pos -= pushback;
+                    }
+                    break;
+                case INNOT_EQUAL:
+                    state = StateType.DONE;
+                    if(c == '='){
+                        currentToken = TokenType.NOT_EQUAL_TOKEN;
+                    } else {
+                        currentToken = TokenType.ERROR_TOKEN;
+                        pos -= pushback;
+                    }
+                    break;
+                case INERROR:
+                    // Read to the end of the error token, so abc1234 is one error and not abc1 then 234
+                    if(!Character.isDigit(c) && !Character.isLetter(c)){
+                        state = StateType.DONE;
+                        currentToken = TokenType.ERROR_TOKEN;
+                        pos -= pushback;
+                    }
+                    break;
+                case DONE:
+                default:
+                    // Should never happen
+                    state = StateType.DONE;
+                    currentToken = TokenType.ERROR_TOKEN;
+                    break;
+            }
+        }
+
+        // Create the token to return, its data object is only made if getData() is called
+        int value = 0;
+        int end = consumed + pos;
+        if(currentToken == TokenType.EOF_TOKEN){
+            tokenStart = end;
+        }
+
+        // Identifiers are looked up in the symbol table, where keywords have the first ids
+        if(currentToken == TokenType.IDENT_TOKEN){
+            value = symbols.intern(data, 0, dataLength, dataHash);
+            currentToken = SymbolTable.tokenType(value);
+        } else if(currentToken == TokenType.NUM_TOKEN){
+            value = CMinusScanner.parseNum(data, dataLength);
+        }
+
+        return new Token(currentToken, value, symbols, tokenStart, end - tokenStart, lines);
+    }
+
+    private void addData(char c) {
+        if(dataLength == data.length){
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[dataLength++] = c;
+    }
+}
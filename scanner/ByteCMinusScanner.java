@@ -0,0 +1,265 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+public abstract class ByteCMinusScanner implements Scanner, TokenSource {
+    /*
+        Common part of the scanners that read ASCII C- source as raw bytes
+        from a ByteBuffer, usually a memory-mapped file.
+
+        A subclass only supplies scan(), which runs its DFA from pos to the
+        end of the next token and reports it through finish(). Everything
+        else, handing out Tokens, reading token values and filling a
+        TokenBuffer, is shared.
+
+        Letters and digits are the ASCII ones. Any other byte, including bytes
+        above 127, is an error character just like '@' is.
+     */
+
+    protected ByteBuffer buffer;
+    protected int pos;
+    protected int limit;
+    protected SymbolTable symbols;
+    protected LineIndex lines;
+
+    private byte[] lexeme = new byte[64];
+    private Token nextToken;
+
+    // Kind, extent and symbol id of the token found by the last call to scan()
+    private TokenType tokenType;
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenSymbol;
+
+    // scan() is called from here, so subclasses must not depend on their own instance fields
+    protected ByteCMinusScanner (ByteBuffer source, SymbolTable table) {
+        buffer = source;
+        pos = source.position();
+        limit = source.limit();
+        symbols = table;
+        lines = new LineIndex(source);
+        nextToken = scanToken();
+    }
+
+    // Map a whole file read-only. The mapping stays valid after the channel is closed.
+    public static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map (" + size + " bytes)");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    public Token getNextToken () {
+        Token returnToken = nextToken;
+        if(nextToken.getType() != TokenType.EOF_TOKEN){
+            nextToken = scanToken();
+        }
+        return returnToken;
+    }
+    public Token viewNextToken(){
+        return nextToken;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    // Line starts of the source, found the first time a token's line is asked for
+    public LineIndex getLineIndex() {
+        return lines;
+    }
+
+    static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /*
+        Fast paths for long runs of white space and comment text, which the
+        DFA would otherwise step through a byte at a time. Both read the
+        buffer 8 bytes at a time as a long and test all 8 bytes at once with
+        plain arithmetic (SWAR, SIMD within a register), then fall back to a
+        byte at a time for the last few bytes.
+
+        bytesEqual sets the high bit of every byte of word equal to the byte
+        in pattern, and nothing else. It has no false positives, so the
+        first set bit is the first match. getLong follows the buffer's
+        order: big-endian, the first byte in memory is the highest one and
+        its index is numberOfLeadingZeros / 8; little-endian, it is the
+        lowest one and its index is numberOfTrailingZeros / 8. firstByte()
+        takes the order, read once per call.
+     */
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private static final long SPACES = ' ' * ONES;
+    private static final long TABS = '\t' * ONES;
+    private static final long NEWLINES = '\n' * ONES;
+    private static final long RETURNS = '\r' * ONES;
+    private static final long STARS = '*' * ONES;
+
+    private static long bytesEqual(long word, long pattern) {
+        long x = word ^ pattern;
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    // Index of the first byte in memory with its high bit set in mask, mask not 0
+    private static int firstByte(long mask, boolean bigEndian) {
+        return (bigEndian ? Long.numberOfLeadingZeros(mask) : Long.numberOfTrailingZeros(mask)) >>> 3;
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    // Position of the first byte from from that is not white space, or end
+    static int skipSpace(ByteBuffer buffer, int from, int end) {
+        int pos = from;
+        // A single space between tokens is the usual case, keep it cheap
+        if(pos >= end || !isSpace(buffer.get(pos))){
+            return pos;
+        }
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        for(; pos + 8 <= end; pos += 8){
+            long word = buffer.getLong(pos);
+            long space = bytesEqual(word, SPACES) | bytesEqual(word, TABS)
+                | bytesEqual(word, NEWLINES) | bytesEqual(word, RETURNS);
+            if(space != HIGH_BITS){
+                return pos + firstByte(~space & HIGH_BITS, bigEndian);
+            }
+        }
+        while(pos < end && isSpace(buffer.get(pos))){
+            pos++;
+        }
+        return pos;
+    }
+
+    // Position of the first '*' from from, or end. Inside a comment nothing else matters.
+    static int nextStar(ByteBuffer buffer, int from, int end) {
+        int pos = from;
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        for(; pos + 8 <= end; pos += 8){
+            long star = bytesEqual(buffer.getLong(pos), STARS);
+            if(star != 0){
+                return pos + firstByte(star, bigEndian);
+            }
+        }
+        while(pos < end && buffer.get(pos) != '*'){
+            pos++;
+        }
+        return pos;
+    }
+
+    // Run the DFA from the current position to the end of the next token, then call finish()
+    public abstract TokenType scan();
+
+    // Record the token that scan() found. hash is the identifier hash for IDENT_TOKEN.
+    protected TokenType finish(TokenType type, int start, int hash) {
+        // End of file is never consumed, so every later scan() returns EOF again
+        if(pos > limit){
+            pos = limit;
+        }
+        if(type == TokenType.EOF_TOKEN){
+            start = limit;
+        }
+        // Keywords have the first ids in the symbol table
+        tokenSymbol = -1;
+        if(type == TokenType.IDENT_TOKEN){
+            tokenSymbol = symbols.intern(buffer, start, pos - start, hash);
+            type = SymbolTable.tokenType(tokenSymbol);
+        }
+
+        tokenType = type;
+        tokenStart = start;
+        tokenEnd = pos;
+        return type;
+    }
+
+    public TokenType getTokenType() {
+        return tokenType;
+    }
+
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    public int getTokenEnd() {
+        return tokenEnd;
+    }
+
+    // Symbol id of the last identifier or keyword, -1 for other tokens
+    public int getTokenSymbol() {
+        return tokenSymbol;
+    }
+
+    // Value of the last NUM token, symbol id of the last IDENT token, 0 for other tokens
+    public int getTokenValue() {
+        if(tokenType == TokenType.NUM_TOKEN){
+            return tokenValue();
+        } else if(tokenType == TokenType.IDENT_TOKEN){
+            return tokenSymbol;
+        }
+        return 0;
+    }
+
+    // Bytes left to scan after the current token
+    public int remaining() {
+        return limit - pos;
+    }
+
+    // Text of the last token, copied out of the buffer
+    public String tokenText() {
+        int length = tokenEnd - tokenStart;
+        if(lexeme.length < length){
+            lexeme = new byte[Math.max(length, lexeme.length * 2)];
+        }
+        buffer.get(tokenStart, lexeme, 0, length);
+        return new String(lexeme, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    // Value of the last NUM token, read straight from the digits
+    public int tokenValue() {
+        long value = 0;
+        for(int i = tokenStart; i < tokenEnd; i++){
+            value = value * 10 + (buffer.get(i) - '0');
+            if(value > Integer.MAX_VALUE){
+                throw new NumberFormatException("For input string: \"" + tokenText() + "\"");
+            }
+        }
+        return (int) value;
+    }
+
+    // Scan everything from the current token to the end of the file into a TokenBuffer
+    public void scanAll(TokenBuffer tokens) {
+        TokenType type = tokenType;
+        while(true){
+            tokens.add(type, tokenStart, tokenEnd - tokenStart, getTokenValue());
+            if(type == TokenType.EOF_TOKEN){
+                break;
+            }
+            type = scan();
+        }
+        nextToken = new Token(TokenType.EOF_TOKEN, 0, null, limit, 0, lines);
+    }
+
+    // The Token only points at the source, its name or boxed value is made when asked for
+    public Token scanToken() {
+        TokenType type = scan();
+        return new Token(type, getTokenValue(), symbols, tokenStart, tokenEnd - tokenStart, lines);
+    }
+}
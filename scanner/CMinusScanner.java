@@ -3,16 +3,77 @@ package scanner;
 import scanner.Token.TokenType;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 
-public class CMinusScanner implements Scanner {
+public class CMinusScanner implements Scanner, TokenSource {
     
     private BufferedReader inFile;
     private Token nextToken;
+    private SymbolTable symbols;
+
+    // Characters of the current identifier or number, and the running hash of an identifier
+    private char[] data = new char[64];
+    private int dataLength;
+    private int dataHash;
+
+    // Characters read so far, the offset saved by the last mark, where the current token
+    // starts, and the line starts seen so far
+    private int offset;
+    private int markOffset;
+    private int tokenStart;
+    private LineIndex lines = new LineIndex();
+
+    // The token found by the last scan(), see TokenSource
+    private TokenType tokenType;
+    private int tokenValue;
+
+    // Comment text read a block at a time by skipCommentText
+    private char[] commentText = new char[512];
+
+    // Hand out shared tokens, with NUM tokens kept in a small cache by value
+    private boolean sharedTokens;
+    private Token[] numbers;
+
+    // Hot-path counters, null unless ScannerMetrics.ENABLED
+    private ScannerMetrics metrics = ScannerMetrics.ENABLED ? new ScannerMetrics() : null;
     
     public CMinusScanner (BufferedReader file) throws IOException {
+        this(file, new SymbolTable());
+    }
+
+    public CMinusScanner (BufferedReader file, SymbolTable table) throws IOException {
+        this(file, table, false);
+    }
+
+    // With sharedTokens, scanning allocates nothing for tokens it has made before:
+    //     - tokens without data are the Token.of singletons
+    //     - identifiers and keywords are the symbol table's shared tokens
+    //     - NUM tokens are shared by value through a small cache
+    //     - a number too large for an int is an ERROR_TOKEN instead of an exception
+    // Shared tokens have no position, so getLine() is 0 and setData() throws.
+    public CMinusScanner (BufferedReader file, SymbolTable table, boolean sharedTokens) throws IOException {
         inFile = file;
+        symbols = table;
+        this.sharedTokens = sharedTokens;
+        if(sharedTokens){
+            numbers = new Token[NUMBER_CACHE_SIZE];
+        }
         nextToken = scanToken();
     }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    public LineIndex getLineIndex() {
+        return lines;
+    }
+
+    // Counters so far, all zero unless ScannerMetrics.ENABLED
+    public ScannerMetrics.Snapshot getMetrics() {
+        return (metrics == null) ? ScannerMetrics.Snapshot.EMPTY : metrics.snapshot();
+    }
     
     public Token getNextToken () {
         Token returnToken = nextToken;
@@ -20,7 +81,8 @@ public class CMinusScanner implements Scanner {
             try {
                 nextToken = scanToken();
             } catch (IOException ex) {
-                System.out.println("exception");
+                // Scanner has no checked exceptions, so pass the failure on unchecked
+                throw new UncheckedIOException(ex);
             }
         }
         return returnToken;
@@ -29,6 +91,18 @@ public class CMinusScanner implements Scanner {
         return nextToken;
     }
 
+    public TokenType getTokenType() {
+        return tokenType;
+    }
+
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    public int getTokenValue() {
+        return tokenValue;
+    }
+
     public enum StateType {
         START,
         DONE,
@@ -45,32 +119,57 @@ public class CMinusScanner implements Scanner {
     }
     
     public Token scanToken() throws IOException {
+        TokenType type = scan();
+        if(sharedTokens){
+            return sharedToken(type);
+        }
+        // The token keeps the symbol id or number, and only makes its data object
+        // if getData() is called
+        return new Token(type, tokenValue, symbols, tokenStart, offset - tokenStart, lines);
+    }
+
+    // Scan the next token into tokenType, tokenValue and tokenStart without making a Token
+    public TokenType scan() throws IOException {
         // Initialize currentToken and state variables
         TokenType currentToken = TokenType.ERROR_TOKEN;
         StateType state = StateType.START;
         
         // Keep track of the current character, and previous characters for data if needed
         char c;
-        String data = "";
+        dataLength = 0;
+        dataHash = 0;
+        long started = ScannerMetrics.ENABLED ? System.nanoTime() : 0;
 
         // Loop through states (based on DFA)
         while(state != StateType.DONE) {
             // Mark place before moving
             inFile.mark(1);
+            markOffset = offset;
             
             // Get next character, place as c
             int charValue = inFile.read();
             c = (char)charValue;
+            if(charValue != -1){
+                offset++;
+                if(c == '\n'){
+                    lines.addLineStart(offset);
+                }
+                if(ScannerMetrics.ENABLED){
+                    countChar(state);
+                }
+            }
             
             // Loop through all possible states
             switch(state){
                 // Start state: go to DONE for single-character tokens, go to an intermediate state for multiple-character tokens
                 case START:
+                    tokenStart = markOffset;
                     if(Character.isDigit(c)){
-                        data += c;
+                        addData(c);
                         state = StateType.INNUM;
                     } else if (Character.isLetter(c)){
-                        data += c;
+                        addData(c);
+                        dataHash = SymbolTable.hash(dataHash, c);
                         state = StateType.INID;
                     } else if (c == '!'){
                         state = StateType.INNOT_EQUAL;
@@ -128,43 +227,60 @@ public class CMinusScanner implements Scanner {
                     break;
                 case INID:
                     if(Character.isLetter(c)){
-                        data += c;
+                        addData(c);
+                        dataHash = SymbolTable.hash(dataHash, c);
                     } else if (Character.isDigit(c)){
                         state = StateType.INERROR;
                     } else {
                         state = StateType.DONE;
                         currentToken = TokenType.IDENT_TOKEN;
-                        inFile.reset();
+                        pushBack();
                     }
                     break;
                 case INNUM:
                     if(Character.isDigit(c)){
-                        data += c;
+                        addData(c);
                     } else if (Character.isLetter(c)){
                         state = StateType.INERROR;
                     } else {
                         state = StateType.DONE;
                         currentToken = TokenType.NUM_TOKEN;
-                        inFile.reset();
+                        pushBack();
                     }
                     break;
                 case INDIVIDE:
                     if(c == '*'){
                         state = StateType.INCOMMENT;
+                        if(ScannerMetrics.ENABLED){
+                            // The opening / and *, the rest are counted as they are read
+                            metrics.commentChars += 2;
+                        }
                     } else {
                         state = StateType.DONE;
                         currentToken = TokenType.DIVIDE_TOKEN;
-                        inFile.reset();
+                        pushBack();
                     }
                     break;
                 case INCOMMENT:
+                    // Nothing but a '*' can end a comment, so read straight on to the next one
+                    if(c != '*' && charValue != -1){
+                        charValue = skipCommentText();
+                        c = (char)charValue;
+                    }
                     if(c == '*'){
                         state = StateType.INEND_COMMENT;
+                    } else if (charValue == -1){
+                        // End of file inside a comment
+                        state = StateType.DONE;
+                        currentToken = TokenType.EOF_TOKEN;
                     }
                     break;
                 case INEND_COMMENT:
                     if(c == '/'){
                         state = StateType.START;
+                    } else if (charValue == -1){
+                        state = StateType.DONE;
+                        currentToken = TokenType.EOF_TOKEN;
                     } else {
                         state = StateType.INCOMMENT;
                     }
@@ -175,7 +291,7 @@ public class CMinusScanner implements Scanner {
                         currentToken = TokenType.LESS_EQUAL_TOKEN;
                     } else {
                         currentToken = TokenType.LESS_TOKEN;
-                        inFile.reset();
+                        pushBack();
                     } 
                     break;
                 case INGREATER:
@@ -184,7 +300,7 @@ public class CMinusScanner implements Scanner {
                         currentToken = TokenType.GREATER_EQUAL_TOKEN;
                     } else {
                         currentToken = TokenType.GREATER_TOKEN;
-                        inFile.reset();
+                        pushBack();
                     }
                     break;
                 case INEQUAL:
@@ -193,7 +309,7 @@ public class CMinusScanner implements Scanner {
                         currentToken = TokenType.EQUAL_TOKEN;
                     } else {
                         currentToken = TokenType.ASSIGN_TOKEN;
-                        inFile.reset();
+                        pushBack();
                     } 
                     break;
                 case INNOT_EQUAL:
@@ -202,7 +318,7 @@ public class CMinusScanner implements Scanner {
                         currentToken = TokenType.NOT_EQUAL_TOKEN;
                     } else {
                         currentToken = TokenType.ERROR_TOKEN;
-                        inFile.reset();
+                        pushBack();
                     }
                     break;
                 case INERROR:
@@ -210,7 +326,7 @@ public class CMinusScanner implements Scanner {
                     if(!Character.isDigit(c) && !Character.isLetter(c)){
                         state = StateType.DONE;
                         currentToken = TokenType.ERROR_TOKEN;
-                        inFile.reset();
+                        pushBack();
                     }
                     break;
                 case DONE:
@@ -222,42 +338,133 @@ public class CMinusScanner implements Scanner {
             }
         }
         
-        // Create the token to return 
-        Token returnToken = new Token(currentToken);
+        int value = 0;
+        if(currentToken == TokenType.EOF_TOKEN){
+            tokenStart = offset;
+        }
         
-        // Check if an identifier is a keyword
+        // Identifiers are looked up in the symbol table, where keywords have the first ids
         if(currentToken == TokenType.IDENT_TOKEN){
-            switch(data){
-                case "else":
-                    returnToken = new Token(TokenType.ELSE_TOKEN);
-                    break;
-                case "if":
-                    returnToken = new Token(TokenType.IF_TOKEN);
-                    break;
-                case "return":
-                    returnToken = new Token(TokenType.RETURN_TOKEN);
-                    break;
-                case "void":
-                    returnToken = new Token(TokenType.VOID_TOKEN);
-                    break;
-                case "while":
-                    returnToken = new Token(TokenType.WHILE_TOKEN);
-                    break;
-                case "int":
-                    returnToken = new Token(TokenType.INT_TOKEN);
-                    break;
+            value = symbols.intern(data, 0, dataLength, dataHash);
+            currentToken = SymbolTable.tokenType(value);
+        } else if(currentToken == TokenType.NUM_TOKEN){
+            if(sharedTokens){
+                long num = numValue(data, dataLength);
+                if(num < 0){
+                    currentToken = TokenType.ERROR_TOKEN;
+                } else {
+                    value = (int) num;
+                }
+            } else {
+                value = parseNum(data, dataLength);
             }
         }
         
-        // If our token is a num or identifier, it needs data
-        if(returnToken.getType() == TokenType.NUM_TOKEN){
-            returnToken.setData(Integer.parseInt(data));
-        }
-        if(returnToken.getType() == TokenType.IDENT_TOKEN){
-            returnToken.setData(data);
+        if(ScannerMetrics.ENABLED){
+            metrics.tokens[currentToken.ordinal()]++;
+            metrics.nanos += System.nanoTime() - started;
         }
         
-        return returnToken;
+        tokenType = currentToken;
+        tokenValue = value;
+        return currentToken;
+    }
+
+    private static final int NUMBER_CACHE_SIZE = 1024;
+
+    // The shared token for what scan() found, see the sharedTokens constructor
+    private Token sharedToken(TokenType type) {
+        if(type == TokenType.IDENT_TOKEN){
+            return symbols.token(tokenValue);
+        }
+        if(type != TokenType.NUM_TOKEN){
+            return Token.of(type);
+        }
+        // Direct-mapped by value, so only a number not seen lately makes a token
+        int slot = tokenValue & (NUMBER_CACHE_SIZE - 1);
+        Token token = numbers[slot];
+        if(token == null || token.getIntValue() != tokenValue){
+            token = Token.shared(TokenType.NUM_TOKEN, tokenValue);
+            numbers[slot] = token;
+        }
+        return token;
+    }
+
+    private void countChar(StateType state) {
+        metrics.stateChars[state.ordinal()]++;
+        if(state == StateType.INCOMMENT || state == StateType.INEND_COMMENT){
+            metrics.commentChars++;
+        }
+    }
+
+    // Read comment text up to and including the next '*' a block at a time, instead of a
+    // mark and a read per character. Returns '*', or -1 if the file ends first.
+    private int skipCommentText() throws IOException {
+        while(true){
+            inFile.mark(commentText.length);
+            int n = inFile.read(commentText, 0, commentText.length);
+            if(n == -1){
+                return -1;
+            }
+            int i = 0;
+            while(i < n && commentText[i] != '*'){
+                if(commentText[i] == '\n'){
+                    lines.addLineStart(offset + i + 1);
+                }
+                i++;
+            }
+            if(i < n){
+                // Give back what was read past the '*'
+                inFile.reset();
+                inFile.skip(i + 1);
+                n = i + 1;
+            }
+            offset += n;
+            if(ScannerMetrics.ENABLED){
+                metrics.stateChars[StateType.INCOMMENT.ordinal()] += n;
+                metrics.commentChars += n;
+            }
+            if(i < n){
+                return '*';
+            }
+        }
     }
-}
 
+    // Value of the digits in data, the same as Integer.parseInt without making a String first
+    static int parseNum(char[] data, int length) {
+        long value = numValue(data, length);
+        if(value < 0){
+            throw new NumberFormatException("For input string: \"" + new String(data, 0, length) + "\"");
+        }
+        return (int) value;
+    }
+
+    // Value of the digits in data, or -1 if it does not fit in an int
+    static long numValue(char[] data, int length) {
+        long value = 0;
+        for(int i = 0; i < length; i++){
+            // Any Unicode digit the DFA takes, as Integer.parseInt reads it
+            value = value * 10 + Character.digit(data[i], 10);
+            if(value > Integer.MAX_VALUE){
+                return -1;
+            }
+        }
+        return value;
+    }
+
+    // Step back to the last mark, over the character just read if there was one
+    private void pushBack() throws IOException {
+        inFile.reset();
+        offset = markOffset;
+        if(ScannerMetrics.ENABLED){
+            metrics.pushBacks++;
+        }
+    }
+
+    private void addData(char c) {
+        if(dataLength == data.length){
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[dataLength++] = c;
+    }
+}
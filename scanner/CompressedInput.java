@@ -0,0 +1,91 @@
+package scanner;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+public class CompressedInput {
+    /*
+        Opens C- sources that may be compressed, so compressed corpora can
+        be scanned without unpacking them to disk first.
+
+        The format is found from the first bytes, not the file name:
+            gzip    1F 8B, read with java.util.zip, including concatenated members
+            LZ4     the LZ4 frame format, read with Lz4FrameInputStream
+        Anything else is returned as it is. zstd is recognised only to give
+        a clear error.
+
+        The stream decompresses in blocks as the scanner reads it, so memory
+        stays bounded whatever the size of the source.
+     */
+
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int ZSTD_MAGIC = 0xFD2FB528;
+
+    public static InputStream open(File file) throws IOException {
+        return open(new FileInputStream(file));
+    }
+
+    // Decompressing view of in. in is closed if it cannot be read.
+    public static InputStream open(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        try {
+            switch (format(buffered)) {
+                case GZIP:
+                    return new GZIPInputStream(buffered, BUFFER_SIZE);
+                case LZ4:
+                    return new Lz4FrameInputStream(buffered);
+                case ZSTD:
+                    throw new IOException("zstd compressed sources are not supported, recompress with gzip or lz4");
+                default:
+                    return buffered;
+            }
+        } catch (IOException ex) {
+            buffered.close();
+            throw ex;
+        }
+    }
+
+    public static boolean isCompressed(File file) throws IOException {
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), 16)) {
+            return format(in) != Format.PLAIN;
+        }
+    }
+
+    private enum Format {
+        PLAIN,
+        GZIP,
+        LZ4,
+        ZSTD
+    }
+
+    // Look at the first 4 bytes and put them back
+    private static Format format(BufferedInputStream in) throws IOException {
+        in.mark(4);
+        int magic = 0;
+        int count = 0;
+        for (; count < 4; count++) {
+            int b = in.read();
+            if (b < 0) {
+                break;
+            }
+            magic |= b << (8 * count);
+        }
+        in.reset();
+
+        if (count >= 2 && (magic & 0xFFFF) == 0x8B1F) {
+            return Format.GZIP;
+        }
+        if (count == 4 && Lz4FrameInputStream.isMagic(magic)) {
+            return Format.LZ4;
+        }
+        if (count == 4 && magic == ZSTD_MAGIC) {
+            return Format.ZSTD;
+        }
+        return Format.PLAIN;
+    }
+}
@@ -0,0 +1,394 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class IncrementalCMinusScanner {
+    /*
+        Keeps the text of one C- file and its tokens up to date while the
+        file is edited, for an editor that needs the tokens after every
+        keystroke.
+
+        An edit replaces removed characters at offset with new text. Only
+        the tokens around the edit are scanned again:
+            - scanning restarts at the end of the last token that ends before
+              offset. That token's lookahead character is before the edit, so
+              it cannot change, and the DFA is in START after it.
+            - scanning stops at the first new token that starts after the
+              inserted text, at the same place an old token started (shifted
+              by the size change). From there the text is the same and both
+              scans are in START at a token start, so every later token is
+              the same too.
+        Opening a comment can hide the rest of the file, then the scan just
+        never gets back in sync and runs to the end, which is still right.
+
+        The text, the tokens and the line starts are each kept as a gap
+        buffer: what is before the gap at the front of the array, what is
+        after it at the back. Token and line starts after the gap are kept
+        relative to the end of the text, so an edit before them moves them
+        all without touching them. An edit moves the gaps to itself, which
+        costs as much as the distance from the last edit, and then only
+        copies what it removes, inserts and scans again. Nothing in an edit
+        depends on the size of the file, for the usual edits close to each
+        other.
+
+        The tokens are read with tokenCount() and tokenType(i) and the like,
+        which see through the gap, or as a TokenBuffer from getTokens(),
+        which copies them all once per edit.
+
+        Offsets count bytes, and text is stored as ISO-8859-1, so for ASCII
+        source they are character offsets. Symbol ids stay the same across
+        edits, names that are no longer used just stay in the table.
+     */
+
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int INITIAL_GAP = 64;
+
+    // Text: bytes 0 to gapStart, then gapEnd to the end of the array
+    private byte[] text;
+    private int gapStart;
+    private int gapEnd;
+    private int length;
+
+    // Tokens: 0 to tokensBefore, then tokensAfter to the end of the arrays.
+    // Starts after the gap are stored minus the length of the text.
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] values;
+    private int tokensBefore;
+    private int tokensAfter;
+
+    // Offsets where lines start, kept the same way as token starts
+    private int[] lineStarts;
+    private int linesBefore;
+    private int linesAfter;
+
+    private SymbolTable symbols;
+
+    // Copy handed out by getTokens(), until the next edit
+    private TokenBuffer tokens;
+
+    // New token indexes written by the last edit
+    private int changedStart;
+    private int changedEnd;
+
+    public IncrementalCMinusScanner (String source) {
+        byte[] bytes = source.getBytes(StandardCharsets.ISO_8859_1);
+        length = bytes.length;
+        text = Arrays.copyOf(bytes, length + INITIAL_GAP);
+        gapStart = length;
+        gapEnd = text.length;
+        symbols = new SymbolTable();
+
+        int capacity = length / 3 + 16;
+        types = new byte[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        values = new int[capacity];
+        tokensAfter = capacity;
+
+        lineStarts = new int[64];
+        linesAfter = lineStarts.length;
+        addLineStart(0);
+        addLineStarts(0, bytes);
+
+        rescan(0, length);
+        changedStart = 0;
+        changedEnd = tokensBefore;
+    }
+
+    // All the tokens as a TokenBuffer, valid until the next edit. The first call after
+    // an edit copies every token, tokenType(i) and the like read them where they are.
+    public TokenBuffer getTokens() {
+        if (tokens == null) {
+            int count = tokenCount();
+            tokens = new TokenBuffer(symbols, count);
+            for (int i = 0; i < count; i++) {
+                tokens.add(tokenType(i), tokenStart(i), tokenLength(i), tokenValue(i));
+            }
+            int[] lines = new int[lineCount()];
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = lineStart(i);
+            }
+            tokens.setLineIndex(new LineIndex(lines, lines.length));
+        }
+        return tokens;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    // The current text, valid until the next edit
+    public ByteBuffer getSource() {
+        moveGap(length);
+        return ByteBuffer.wrap(text, 0, length).asReadOnlyBuffer();
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public String getText() {
+        return new String(text, 0, gapStart, StandardCharsets.ISO_8859_1)
+            + new String(text, gapEnd, text.length - gapEnd, StandardCharsets.ISO_8859_1);
+    }
+
+    // First token index written by the last edit
+    public int getChangedStart() {
+        return changedStart;
+    }
+
+    // End of the token indexes written by the last edit, exclusive
+    public int getChangedEnd() {
+        return changedEnd;
+    }
+
+    /* Tokens */
+
+    public int tokenCount() {
+        return tokensBefore + types.length - tokensAfter;
+    }
+
+    public TokenType tokenType(int i) {
+        return TYPES[types[index(i)]];
+    }
+
+    public int tokenStart(int i) {
+        return (i < tokensBefore) ? starts[i] : starts[index(i)] + length;
+    }
+
+    public int tokenLength(int i) {
+        return lengths[index(i)];
+    }
+
+    // The number for NUM, the symbol id for IDENT, 0 otherwise
+    public int tokenValue(int i) {
+        return values[index(i)];
+    }
+
+    private int index(int i) {
+        return (i < tokensBefore) ? i : i - tokensBefore + tokensAfter;
+    }
+
+    /* Lines */
+
+    // Line of offset, lines count from 1
+    public int line(int offset) {
+        // Last line that starts at or before offset
+        int low = 0;
+        int high = lineCount() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (lineStart(middle) <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    public int column(int offset) {
+        return offset - lineStart(line(offset) - 1) + 1;
+    }
+
+    private int lineCount() {
+        return linesBefore + lineStarts.length - linesAfter;
+    }
+
+    private int lineStart(int i) {
+        return (i < linesBefore) ? lineStarts[i] : lineStarts[i - linesBefore + linesAfter] + length;
+    }
+
+    /* Editing */
+
+    // Replace removed characters at offset with inserted, and update the tokens
+    public void edit(int offset, int removed, String inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > length) {
+            throw new IndexOutOfBoundsException("edit " + offset + "+" + removed + " outside 0-" + length);
+        }
+        byte[] bytes = inserted.getBytes(StandardCharsets.ISO_8859_1);
+        tokens = null;
+
+        // Everything before the edit keeps its offsets, everything after it is
+        // relative to the end of the text, so it moves with the edit by itself
+        int first = firstAffected(offset);
+        int restart = (first == 0) ? 0 : tokenStart(first - 1) + tokenLength(first - 1);
+        moveTokenGap(first);
+        moveLineGap(offset);
+        // Lines that started in the removed text
+        while (linesAfter < lineStarts.length && lineStarts[linesAfter] + length <= offset + removed) {
+            linesAfter++;
+        }
+
+        replaceText(offset, removed, bytes);
+        addLineStarts(offset, bytes);
+        rescan(restart, offset + bytes.length);
+        changedStart = first;
+        changedEnd = tokensBefore;
+    }
+
+    // Scan from restart, which is after the tokens before the gap, until the scan is back
+    // in sync with the tokens after the gap past editEnd. The new tokens go before the gap.
+    private void rescan(int restart, int editEnd) {
+        moveGap(restart);
+        TableCMinusScanner scanner = new TableCMinusScanner(ByteBuffer.wrap(text, gapEnd, text.length - gapEnd), symbols);
+        // The scanner sees array indexes, the text after the gap starts at restart
+        int shift = restart - gapEnd;
+        TokenType type = scanner.getTokenType();
+        while(true){
+            int start = scanner.getTokenStart() + shift;
+            // Back in sync when an old token starts here, past the inserted text.
+            // The old EOF token always matches, so this ends at the latest at end of file.
+            if(start >= editEnd){
+                while(tokensAfter < types.length && starts[tokensAfter] + length < start){
+                    tokensAfter++;
+                }
+                if(tokensAfter < types.length && starts[tokensAfter] + length == start){
+                    break;
+                }
+            }
+            int value = 0;
+            if(type == TokenType.NUM_TOKEN){
+                value = scanner.tokenValue();
+            } else if(type == TokenType.IDENT_TOKEN){
+                value = scanner.getTokenSymbol();
+            }
+            addToken(type, start, scanner.getTokenEnd() + shift - start, value);
+            if(type == TokenType.EOF_TOKEN){
+                tokensAfter = types.length;
+                break;
+            }
+            type = scanner.scan();
+        }
+    }
+
+    // First token whose end is at or after offset, the end of the EOF token is the end of the text
+    private int firstAffected(int offset) {
+        int low = 0;
+        int high = tokenCount() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokenStart(middle) + tokenLength(middle) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void replaceText(int offset, int removed, byte[] inserted) {
+        moveGap(offset);
+        gapEnd += removed;
+        if (gapEnd - gapStart < inserted.length) {
+            int after = text.length - gapEnd;
+            byte[] larger = new byte[Math.max(gapStart + inserted.length + after + INITIAL_GAP, text.length * 2)];
+            System.arraycopy(text, 0, larger, 0, gapStart);
+            System.arraycopy(text, gapEnd, larger, larger.length - after, after);
+            gapEnd = larger.length - after;
+            text = larger;
+        }
+        System.arraycopy(inserted, 0, text, gapStart, inserted.length);
+        gapStart += inserted.length;
+        length += inserted.length - removed;
+    }
+
+    // Move the text gap to offset, copying the text between
+    private void moveGap(int offset) {
+        if (offset < gapStart) {
+            int count = gapStart - offset;
+            System.arraycopy(text, offset, text, gapEnd - count, count);
+            gapStart -= count;
+            gapEnd -= count;
+        } else if (offset > gapStart) {
+            int count = offset - gapStart;
+            System.arraycopy(text, gapEnd, text, gapStart, count);
+            gapStart += count;
+            gapEnd += count;
+        }
+    }
+
+    // Move the token gap to before token first
+    private void moveTokenGap(int first) {
+        while (tokensBefore > first) {
+            tokensBefore--;
+            tokensAfter--;
+            types[tokensAfter] = types[tokensBefore];
+            starts[tokensAfter] = starts[tokensBefore] - length;
+            lengths[tokensAfter] = lengths[tokensBefore];
+            values[tokensAfter] = values[tokensBefore];
+        }
+        while (tokensBefore < first) {
+            types[tokensBefore] = types[tokensAfter];
+            starts[tokensBefore] = starts[tokensAfter] + length;
+            lengths[tokensBefore] = lengths[tokensAfter];
+            values[tokensBefore] = values[tokensAfter];
+            tokensBefore++;
+            tokensAfter++;
+        }
+    }
+
+    private void addToken(TokenType type, int start, int tokenLength, int value) {
+        if (tokensBefore == tokensAfter) {
+            int after = types.length - tokensAfter;
+            int capacity = types.length * 2;
+            types = moveBack(types, Arrays.copyOf(types, capacity), after);
+            starts = moveBack(starts, Arrays.copyOf(starts, capacity), after);
+            lengths = moveBack(lengths, Arrays.copyOf(lengths, capacity), after);
+            values = moveBack(values, Arrays.copyOf(values, capacity), after);
+            tokensAfter = capacity - after;
+        }
+        types[tokensBefore] = (byte) type.ordinal();
+        starts[tokensBefore] = start;
+        lengths[tokensBefore] = tokenLength;
+        values[tokensBefore] = value;
+        tokensBefore++;
+    }
+
+    // Move the lines gap to after the last line start at or before offset
+    private void moveLineGap(int offset) {
+        while (linesBefore > 0 && lineStarts[linesBefore - 1] > offset) {
+            linesBefore--;
+            linesAfter--;
+            lineStarts[linesAfter] = lineStarts[linesBefore] - length;
+        }
+        while (linesAfter < lineStarts.length && lineStarts[linesAfter] + length <= offset) {
+            lineStarts[linesBefore++] = lineStarts[linesAfter++] + length;
+        }
+    }
+
+    // Record the lines started by inserted, now at offset, before the lines gap
+    private void addLineStarts(int offset, byte[] inserted) {
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] == '\n') {
+                addLineStart(offset + i + 1);
+            }
+        }
+    }
+
+    private void addLineStart(int offset) {
+        if (linesBefore == linesAfter) {
+            int after = lineStarts.length - linesAfter;
+            int capacity = lineStarts.length * 2;
+            lineStarts = moveBack(lineStarts, Arrays.copyOf(lineStarts, capacity), after);
+            linesAfter = capacity - after;
+        }
+        lineStarts[linesBefore++] = offset;
+    }
+
+    // Move the last count entries of old to the end of larger, a copy of old grown for a wider gap
+    private static byte[] moveBack(byte[] old, byte[] larger, int count) {
+        System.arraycopy(old, old.length - count, larger, larger.length - count, count);
+        return larger;
+    }
+
+    private static int[] moveBack(int[] old, int[] larger, int count) {
+        System.arraycopy(old, old.length - count, larger, larger.length - count, count);
+        return larger;
+    }
+}
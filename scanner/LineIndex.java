@@ -0,0 +1,94 @@
+package scanner;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class LineIndex {
+    /*
+        Offsets where the lines of a source start, to turn a token offset
+        into a line and column. Lines and columns count from 1.
+
+        A scanner reading a stream records each line start as it passes it.
+        For a source that stays in memory, like a mapped file, nothing is
+        done until the first line or column is asked for, so scanning
+        without positions never pays for them.
+
+        Only '\n' ends a line, a '\r' before it is the last column of the line.
+     */
+
+    private int[] lineStarts = new int[64];
+    private int lineCount = 1;
+
+    // Source still to be searched for line starts, null once that is done
+    private ByteBuffer source;
+
+    // Line starts are added with addLineStart() while the source is read
+    public LineIndex() {
+    }
+
+    // Line starts are found in source, from index 0 to its limit, when first needed
+    public LineIndex(ByteBuffer source) {
+        this.source = source;
+    }
+
+    // Line starts already known, lineStarts[0] is 0
+    public LineIndex(int[] lineStarts, int lineCount) {
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+    }
+
+    // Record a line starting at offset. Offsets come in order, one already recorded is ignored.
+    public void addLineStart(int offset) {
+        if (offset <= lineStarts[lineCount - 1]) {
+            return;
+        }
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = offset;
+    }
+
+    public int line(int offset) {
+        build();
+        // Last line that starts at or before offset
+        int low = 0;
+        int high = lineCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (lineStarts[middle] <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    public int column(int offset) {
+        return offset - lineStarts[line(offset) - 1] + 1;
+    }
+
+    public int lineCount() {
+        build();
+        return lineCount;
+    }
+
+    // Offset where line starts, lines count from 1
+    public int lineStart(int line) {
+        build();
+        return lineStarts[line - 1];
+    }
+
+    private void build() {
+        if (source == null) {
+            return;
+        }
+        int limit = source.limit();
+        for (int i = 0; i < limit; i++) {
+            if (source.get(i) == '\n') {
+                addLineStart(i + 1);
+            }
+        }
+        source = null;
+    }
+}
@@ -0,0 +1,113 @@
+package scanner;
+
+import scanner.Token.TokenType;
+
+public class LookaheadScanner implements Scanner, TokenStream {
+    /*
+        Gives any Scanner peek(k), so a parser can look several tokens
+        ahead before it decides what to parse.
+
+        Tokens read ahead wait in a fixed ring buffer whose size is a power
+        of two, so finding one is a mask and not a modulo. The ring is made
+        once, and reading ahead and consuming only move head and count, so
+        the buffer allocates nothing after construction. Tokens are only
+        read from the underlying scanner when a peek needs them.
+
+        Once the underlying scanner reaches EOF_TOKEN it keeps returning it,
+        so peeking past the end gives EOF_TOKEN.
+
+        As a TokenStream it reads the Tokens it already holds, for scanners
+        that can only hand out Tokens.
+     */
+
+    public static final int DEFAULT_LOOKAHEAD = 4;
+
+    private Scanner source;
+    private Token[] ring;
+    private int mask;
+
+    // Ring index of the next token, and how many tokens have been read ahead
+    private int head;
+    private int count;
+
+    public LookaheadScanner (Scanner source) {
+        this(source, DEFAULT_LOOKAHEAD);
+    }
+
+    // lookahead is how many tokens can be seen at once, peek(lookahead - 1) is the furthest
+    public LookaheadScanner (Scanner source, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("lookahead must be at least 1: " + lookahead);
+        }
+        int capacity = 1;
+        while (capacity < lookahead) {
+            capacity <<= 1;
+        }
+        this.source = source;
+        ring = new Token[capacity];
+        mask = capacity - 1;
+    }
+
+    // Wrap scanner, unless it already is a LookaheadScanner
+    public static LookaheadScanner of(Scanner scanner) {
+        if (scanner instanceof LookaheadScanner) {
+            return (LookaheadScanner) scanner;
+        }
+        return new LookaheadScanner(scanner);
+    }
+
+    public Token peek(int k) {
+        if (k < 0 || k > mask) {
+            throw new IllegalArgumentException("can only peek 0 to " + mask + " tokens ahead: " + k);
+        }
+        while (count <= k) {
+            ring[(head + count) & mask] = source.getNextToken();
+            count++;
+        }
+        return ring[(head + k) & mask];
+    }
+
+    // Kind of the token k places ahead
+    public TokenType peekType(int k) {
+        return peek(k).getType();
+    }
+
+    public Token getNextToken() {
+        Token returnToken = peek(0);
+        head = (head + 1) & mask;
+        count--;
+        return returnToken;
+    }
+
+    public Token viewNextToken() {
+        return peek(0);
+    }
+
+    public int kind() {
+        return peek(0).getType().ordinal();
+    }
+
+    public int kind(int k) {
+        return peek(k).getType().ordinal();
+    }
+
+    public int intValue() {
+        return peek(0).getIntValue();
+    }
+
+    public String name() {
+        return (String) peek(0).getData();
+    }
+
+    public int line() {
+        return peek(0).getLine();
+    }
+
+    public int column() {
+        return peek(0).getColumn();
+    }
+
+    public void advance() {
+        getNextToken();
+    }
+}
@@ -0,0 +1,294 @@
+package scanner;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class Lz4FrameInputStream extends InputStream {
+    /*
+        Streaming decoder for the LZ4 frame format, the .lz4 files written
+        by the lz4 command line tool.
+
+        A frame is a header, a series of blocks of at most the frame's block
+        size (64 KB to 4 MB), and an end mark. Each block is decoded whole
+        into out and then read from there, so memory stays at one block plus
+        the 64 KB window that a block may refer back into when the frame's
+        blocks are not independent. Concatenated frames and skippable frames
+        are read in order, as the lz4 tool does.
+
+        The optional xxHash checksums are skipped, not checked. Frames that
+        need an external dictionary are refused.
+     */
+
+    static final int MAGIC = 0x184D2204;
+    private static final int SKIPPABLE_MAGIC = 0x184D2A50;
+    private static final int SKIPPABLE_MASK = 0xFFFFFFF0;
+
+    // How far back a match can reach
+    private static final int WINDOW = 64 * 1024;
+
+    private InputStream in;
+    private byte[] header = new byte[8];
+    private byte[] compressed = new byte[0];
+
+    // Up to WINDOW bytes of earlier output, then the current block. pos to end is unread.
+    private byte[] out = new byte[0];
+    private int pos;
+    private int end;
+
+    // From the current frame's header
+    private boolean independent;
+    private boolean blockChecksum;
+    private boolean contentChecksum;
+    private int blockMax;
+    private boolean done;
+
+    // Whether the first 4 bytes, little-endian, can start an LZ4 stream
+    static boolean isMagic(int magic) {
+        return magic == MAGIC || (magic & SKIPPABLE_MASK) == SKIPPABLE_MAGIC;
+    }
+
+    public Lz4FrameInputStream (InputStream in) throws IOException {
+        this.in = in;
+        if (!readFrameHeader()) {
+            throw new IOException("not an LZ4 frame: empty input");
+        }
+    }
+
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return out[pos++] & 0xFF;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, end - pos);
+        System.arraycopy(out, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    public int available() {
+        return end - pos;
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Decode blocks until there is something to read, false at the end of the last frame
+    private boolean fill() throws IOException {
+        while (pos == end) {
+            if (done || !readBlock()) {
+                done = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Read the next frame header, skipping skippable frames. False at a clean end of input.
+    private boolean readFrameHeader() throws IOException {
+        while (true) {
+            int first = in.read();
+            if (first == -1) {
+                return false;
+            }
+            header[0] = (byte) first;
+            readFully(header, 1, 3);
+            int magic = intAt(header, 0);
+            if ((magic & SKIPPABLE_MASK) == SKIPPABLE_MAGIC) {
+                readFully(header, 0, 4);
+                skipFully(intAt(header, 0) & 0xFFFFFFFFL);
+                continue;
+            }
+            if (magic != MAGIC) {
+                throw new IOException("not an LZ4 frame: bad magic number");
+            }
+            break;
+        }
+
+        readFully(header, 0, 2);
+        int flags = header[0] & 0xFF;
+        int blockSize = (header[1] >>> 4) & 7;
+        if ((flags >>> 6) != 1) {
+            throw new IOException("unsupported LZ4 frame version " + (flags >>> 6));
+        }
+        if ((flags & 1) != 0) {
+            throw new IOException("LZ4 frames with a dictionary are not supported");
+        }
+        if (blockSize < 4) {
+            throw new IOException("corrupt LZ4 frame: bad block size");
+        }
+        independent = (flags & 0x20) != 0;
+        blockChecksum = (flags & 0x10) != 0;
+        contentChecksum = (flags & 0x04) != 0;
+        blockMax = 1 << (2 * blockSize + 8);
+
+        // Content size if present, then the header checksum
+        skipFully(((flags & 0x08) != 0) ? 9 : 1);
+
+        if (compressed.length < blockMax) {
+            compressed = new byte[blockMax];
+        }
+        if (out.length < WINDOW + blockMax) {
+            out = new byte[WINDOW + blockMax];
+        }
+        // A new frame never refers back into the one before
+        pos = 0;
+        end = 0;
+        return true;
+    }
+
+    // Decode the next block into out, moving on to the next frame at an end mark
+    private boolean readBlock() throws IOException {
+        readFully(header, 0, 4);
+        int size = intAt(header, 0);
+        if (size == 0) {
+            if (contentChecksum) {
+                skipFully(4);
+            }
+            return readFrameHeader();
+        }
+        boolean stored = size < 0;
+        size &= 0x7FFFFFFF;
+        if (size > blockMax) {
+            throw new IOException("corrupt LZ4 frame: block larger than the block size");
+        }
+
+        // Keep the end of the earlier output for matches to refer back to
+        int keep = independent ? 0 : Math.min(end, WINDOW);
+        System.arraycopy(out, end - keep, out, 0, keep);
+
+        readFully(compressed, 0, size);
+        if (stored) {
+            System.arraycopy(compressed, 0, out, keep, size);
+            end = keep + size;
+        } else {
+            end = decompress(compressed, size, out, keep, keep + blockMax);
+        }
+        pos = keep;
+        if (blockChecksum) {
+            skipFully(4);
+        }
+        return true;
+    }
+
+    /*
+        One LZ4 block is a series of sequences, each
+            token       high 4 bits literal count, low 4 bits match length - 4,
+                        15 means more length bytes follow, each added until
+                        one is not 255
+            literals    copied as they are
+            offset      2 bytes, how far back the match starts
+            match       copied from earlier output, and may overlap itself
+        The last sequence stops after its literals.
+     */
+    static int decompress(byte[] src, int srcLength, byte[] dst, int dstStart, int dstLimit) throws IOException {
+        int s = 0;
+        int d = dstStart;
+        while (true) {
+            if (s >= srcLength) {
+                throw corrupt();
+            }
+            int token = src[s++] & 0xFF;
+
+            int literals = token >>> 4;
+            if (literals == 15) {
+                int b;
+                do {
+                    if (s >= srcLength) {
+                        throw corrupt();
+                    }
+                    b = src[s++] & 0xFF;
+                    literals += b;
+                } while (b == 255);
+            }
+            if (literals > srcLength - s || literals > dstLimit - d) {
+                throw corrupt();
+            }
+            System.arraycopy(src, s, dst, d, literals);
+            s += literals;
+            d += literals;
+            if (s == srcLength) {
+                return d;
+            }
+
+            if (s + 2 > srcLength) {
+                throw corrupt();
+            }
+            int offset = (src[s] & 0xFF) | ((src[s + 1] & 0xFF) << 8);
+            s += 2;
+            if (offset == 0 || offset > d) {
+                throw corrupt();
+            }
+
+            int match = token & 15;
+            if (match == 15) {
+                int b;
+                do {
+                    if (s >= srcLength) {
+                        throw corrupt();
+                    }
+                    b = src[s++] & 0xFF;
+                    match += b;
+                } while (b == 255);
+            }
+            match += 4;
+            if (match > dstLimit - d) {
+                throw corrupt();
+            }
+
+            int from = d - offset;
+            if (offset >= match) {
+                System.arraycopy(dst, from, dst, d, match);
+            } else {
+                // Overlapping match, a short repeat pattern: copy a byte at a time
+                for (int i = 0; i < match; i++) {
+                    dst[d + i] = dst[from + i];
+                }
+            }
+            d += match;
+        }
+    }
+
+    private static IOException corrupt() {
+        return new IOException("corrupt LZ4 block");
+    }
+
+    // Little-endian int
+    private static int intAt(byte[] b, int at) {
+        return (b[at] & 0xFF) | ((b[at + 1] & 0xFF) << 8) | ((b[at + 2] & 0xFF) << 16) | ((b[at + 3] & 0xFF) << 24);
+    }
+
+    private void readFully(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = in.read(b, off, len);
+            if (n < 0) {
+                throw new EOFException("truncated LZ4 frame");
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void skipFully(long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("truncated LZ4 frame");
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+}
@@ -1,33 +1,128 @@
 package scanner;
 
-import scanner.Token.TokenType;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 public class Main {
+    /*
+        Token dump.
+
+        With no arguments, scans scanner/input.txt into scanner/output.txt.
+
+        Otherwise
+            java scanner.Main [-compact] [-o output] [-metrics json] [file ...]
+        scans each file in turn, or standard input when no file is given
+        or the file is "-", and writes to output or standard output.
+        -compact writes "line:column TYPE[ data]" lines, see TokenWriter.
+
+        Files are memory-mapped and scanned as ASCII bytes, so no Token
+        objects are made. Standard input, and files too large to map, are
+        read as ASCII through a BlockCMinusScanner, which gives the same
+        tokens: a byte above 127 is an error character either way.
+
+        -metrics scans with CMinusScanner instead, with ScannerMetrics
+        enabled, and writes the counters of all the input as JSON to json.
+
+        gzip and LZ4 input, files or standard input, is decompressed as it
+        is scanned, see CompressedInput.
+     */
+
     public static void main(String[] args) throws FileNotFoundException, IOException {
-        // Get the input file that has the C- code
-        File inputFile = new File("scanner/input.txt");
-        FileReader codeFile = new FileReader(inputFile);
-        BufferedReader inputReader = new BufferedReader(codeFile);
-        
-        // Scan through the file for tokens
-        CMinusScanner myScanner = new CMinusScanner(inputReader);
-       
-        // Get the output file to print into
-        FileWriter outputFile = new FileWriter("scanner/output.txt"); 
-        
-        Token next = myScanner.getNextToken();
-        while(next.getType() != TokenType.EOF_TOKEN){
-            outputFile.write(next.toString());
-            next = myScanner.getNextToken();
+        if(args.length == 0){
+            // Get the input file that has the C- code
+            File inputFile = new File("scanner/input.txt");
+            FileReader codeFile = new FileReader(inputFile);
+            BufferedReader inputReader = new BufferedReader(codeFile);
+            
+            // Scan through the file for tokens
+            CMinusScanner myScanner = new CMinusScanner(inputReader);
+           
+            // Get the output file to print into
+            TokenWriter outputFile = new TokenWriter(new FileOutputStream("scanner/output.txt"));
+            outputFile.writeAll(myScanner);
+            
+            // Close output file
+            outputFile.close();
+            return;
+        }
+
+        boolean compact = false;
+        String output = null;
+        String metrics = null;
+        int first = 0;
+        while(first < args.length && args[first].startsWith("-") && args[first].length() > 1){
+            if(args[first].equals("-compact")){
+                compact = true;
+            } else if(args[first].equals("-o") && first + 1 < args.length){
+                output = args[++first];
+            } else if(args[first].equals("-metrics") && first + 1 < args.length){
+                metrics = args[++first];
+            } else {
+                System.err.println("usage: java scanner.Main [-compact] [-o output] [-metrics json] [file ...]");
+                System.exit(2);
+            }
+            first++;
+        }
+
+        // Must be set before ScannerMetrics is loaded, ENABLED is read once
+        if(metrics != null){
+            System.setProperty("scanner.metrics", "true");
+        }
+        ScannerMetrics.Snapshot total = ScannerMetrics.Snapshot.EMPTY;
+
+        // System.out is a PrintStream that locks on every write, so write to the descriptor
+        OutputStream out = (output == null)
+            ? new FileOutputStream(FileDescriptor.out)
+            : new FileOutputStream(output);
+        TokenWriter writer = new TokenWriter(out, compact, 1 << 20);
+        try {
+            if(first == args.length){
+                total = total.plus(dump("-", writer, metrics != null));
+            }
+            for(int i = first; i < args.length; i++){
+                total = total.plus(dump(args[i], writer, metrics != null));
+            }
+        } finally {
+            writer.close();
+        }
+
+        if(metrics != null){
+            try (OutputStream json = new FileOutputStream(metrics)) {
+                json.write(total.toJson().getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    // Dump one file, and return its ScannerMetrics counters if metrics is set
+    private static ScannerMetrics.Snapshot dump(String path, TokenWriter writer, boolean metrics) throws IOException {
+        File file = new File(path);
+        boolean stdin = path.equals("-");
+        if(!metrics && !stdin && file.length() <= Integer.MAX_VALUE && !CompressedInput.isCompressed(file)){
+            writer.writeAll(new TableCMinusScanner(file));
+            return ScannerMetrics.Snapshot.EMPTY;
+        }
+        InputStreamReader reader = new InputStreamReader(
+            stdin ? CompressedInput.open(new FileInputStream(FileDescriptor.in)) : CompressedInput.open(file),
+            StandardCharsets.US_ASCII);
+        try {
+            if(metrics){
+                CMinusScanner scanner = new CMinusScanner(new BufferedReader(reader, 1 << 16));
+                writer.writeAll(scanner);
+                return scanner.getMetrics();
+            }
+            writer.writeAll(new BlockCMinusScanner(reader, BlockCMinusScanner.DEFAULT_BLOCK_SIZE));
+            return ScannerMetrics.Snapshot.EMPTY;
+        } finally {
+            reader.close();
         }
-        
-        // Close output file
-        outputFile.close();
     }
 }
@@ -0,0 +1,230 @@
+package scanner;
+
+import scanner.CMinusScanner.StateType;
+import scanner.Token.TokenType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class MappedCMinusScanner extends ByteCMinusScanner {
+    /*
+        Byte-level scanner for ASCII C- sources.
+
+        The input file is memory-mapped and the DFA reads raw bytes straight
+        from the mapping, so there is no charset decoding and no copy into an
+        intermediate buffer. Identifiers are hashed while they are read and
+        looked up in the symbol table straight from the mapped bytes, so only
+        a new name is ever copied out.
+     */
+
+    public MappedCMinusScanner (File file) throws IOException {
+        this(map(file));
+    }
+
+    public MappedCMinusScanner (ByteBuffer source) {
+        this(source, new SymbolTable());
+    }
+
+    public MappedCMinusScanner (ByteBuffer source, SymbolTable table) {
+        super(source, table);
+    }
+
+    // Run the DFA from the current position to the end of the next token
+    public TokenType scan() {
+        TokenType currentToken = TokenType.ERROR_TOKEN;
+        StateType state = StateType.START;
+        int start = pos;
+        int hash = 0;
+
+        while(state != StateType.DONE) {
+            int c = (pos < limit) ? (buffer.get(pos) & 0xFF) : -1;
+            pos++;
+
+            switch(state){
+                case START:
+                    start = pos - 1;
+                    if(isDigit(c)){
+                        state = StateType.INNUM;
+                    } else if (isLetter(c)){
+                        hash = SymbolTable.hash(hash, c);
+                        state = StateType.INID;
+                    } else if (c == '!'){
+                        state = StateType.INNOT_EQUAL;
+                    } else if (c == '>'){
+                        state = StateType.INGREATER;
+                    } else if (c == '<'){
+                        state = StateType.INLESS;
+                    } else if (c == '='){
+                        state = StateType.INEQUAL;
+                    } else if (c == '/'){
+                        state = StateType.INDIVIDE;
+                    } else if (c == -1){
+                        currentToken = TokenType.EOF_TOKEN;
+                        state = StateType.DONE;
+                    } else if (c == ' ' || c == '\t' || c == '\n' || c == '\r'){
+                        // white space: skip the rest of the run, 8 bytes at a time
+                        pos = skipSpace(buffer, pos, limit);
+                    } else {
+                        state = StateType.DONE;
+                        switch(c){
+                            case '+':
+                                currentToken = TokenType.PLUS_TOKEN;
+                                break;
+                            case '-':
+                                currentToken = TokenType.MINUS_TOKEN;
+                                break;
+                            case '*':
+                                currentToken = TokenType.MULT_TOKEN;
+                                break;
+                            case ';':
+                                currentToken = TokenType.SEMI_TOKEN;
+                                break;
+                            case ',':
+                                currentToken = TokenType.COMMA_TOKEN;
+                                break;
+                            case '(':
+                                currentToken = TokenType.LEFT_PAREN_TOKEN;
+                                break;
+                            case ')':
+                                currentToken = TokenType.RIGHT_PAREN_TOKEN;
+                                break;
+                            case '[':
+                                currentToken = TokenType.LEFT_BRACKET_TOKEN;
+                                break;
+                            case ']':
+                                currentToken = TokenType.RIGHT_BRACKET_TOKEN;
+                                break;
+                            case '{':
+                                currentToken = TokenType.LEFT_BRACE_TOKEN;
+                                break;
+                            case '}':
+                                currentToken = TokenType.RIGHT_BRACE_TOKEN;
+                                break;
+                        }
+                    }
+                    break;
+                case INID:
+                    if(isLetter(c)){
+                        // keep reading the identifier without going around the DFA loop
+                        hash = SymbolTable.hash(hash, c);
+                        while(pos < limit && isLetter(c = buffer.get(pos))){
+                            hash = SymbolTable.hash(hash, c);
+                            pos++;
+                        }
+                    } else if (isDigit(c)){
+                        state = StateType.INERROR;
+                    } else {
+                        state = StateType.DONE;
+                        currentToken = TokenType.IDENT_TOKEN;
+                        pos--;
+                    }
+                    break;
+                case INNUM:
+                    if(isDigit(c)){
+                        while(pos < limit && isDigit(buffer.get(pos))){
+                            pos++;
+                        }
+                    } else if (isLetter(c)){
+                        state = StateType.INERROR;
+                    } else {
+                        state = StateType.DONE;
+                        currentToken = TokenType.NUM_TOKEN;
+                        pos--;
+                    }
+                    break;
+                case INDIVIDE:
+                    if(c == '*'){
+                        state = StateType.INCOMMENT;
+                    } else {
+                        state = StateType.DONE;
+                        currentToken = TokenType.DIVIDE_TOKEN;
+                        pos--;
+                    }
+                    break;
+                case INCOMMENT:
+                    // skip straight to the next '*', 8 bytes at a time
+                    if(c != '*' && c != -1){
+                        pos = nextStar(buffer, pos, limit);
+                        if(pos < limit){
+                            c = '*';
+                            pos++;
+                        } else {
+                            c = -1;
+                            pos++;
+                        }
+                    }
+                    if(c == '*'){
+                        state = StateType.INEND_COMMENT;
+                    } else if (c == -1){
+                        state = StateType.DONE;
+                        currentToken = TokenType.EOF_TOKEN;
+                        pos--;
+                    }
+                    break;
+                case INEND_COMMENT:
+                    if(c == '/'){
+                        state = StateType.START;
+                    } else if (c == -1){
+                        state = StateType.DONE;
+                        currentToken = TokenType.EOF_TOKEN;
+                        pos--;
+                    } else {
+                        state = StateType.INCOMMENT;
+                    }
+                    break;
+                case INLESS:
+                    state = StateType.DONE;
+                    if(c == '='){
+                        currentToken = TokenType.LESS_EQUAL_TOKEN;
+                    } else {
+                        currentToken = TokenType.LESS_TOKEN;
+                        pos--;
+                    }
+                    break;
+                case INGREATER:
+                    state = StateType.DONE;
+                    if(c == '='){
+                        currentToken = TokenType.GREATER_EQUAL_TOKEN;
+                    } else {
+                        currentToken = TokenType.GREATER_TOKEN;
+                        pos--;
+                    }
+                    break;
+                case INEQUAL:
+                    state = StateType.DONE;
+                    if(c == '='){
+                        currentToken = TokenType.EQUAL_TOKEN;
+                    } else {
+                        currentToken = TokenType.ASSIGN_TOKEN;
+                        pos--;
+                    }
+                    break;
+                case INNOT_EQUAL:
+                    state = StateType.DONE;
+                    if(c == '='){
+                        currentToken = TokenType.NOT_EQUAL_TOKEN;
+                    } else {
+                        currentToken = TokenType.ERROR_TOKEN;
+                        pos--;
+                    }
+                    break;
+                case INERROR:
+                    // Read to the end of the error token, so abc1234 is one error and not abc1 then 234
+                    if(!isDigit(c) && !isLetter(c)){
+                        state = StateType.DONE;
+                        currentToken = TokenType.ERROR_TOKEN;
+                        pos--;
+                    }
+                    break;
+                case DONE:
+                default:
+                    // Should never happen
+                    state = StateType.DONE;
+                    currentToken = TokenType.ERROR_TOKEN;
+                    break;
+            }
+        }
+
+        return finish(currentToken, start, hash);
+    }
+}
@@ -0,0 +1,178 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class ParallelCMinusScanner implements Scanner {
+    /*
+        Parallel scanning of one large C- file.
+
+        The input is split into chunks, and every chunk boundary is moved
+        forward to a whitespace byte, so a chunk always starts with
+        whitespace. Outside a comment, whitespace ends whatever token came
+        before it, exactly like the end of a chunk does. So no token is
+        ever cut in two, and the only thing a chunk does not know is
+        whether it starts inside a comment.
+
+        Every chunk is scanned on the ForkJoinPool with TableCMinusScanner,
+        speculating that it starts outside a comment. Then the chunks are
+        stitched in order. The previous chunk tells whether the speculation
+        was right. If it was wrong, the chunk is scanned again on the
+        calling thread, starting just after the comment closes. That only
+        happens when a comment crosses a chunk boundary.
+
+        Each chunk has its own SymbolTable. While stitching, its names are
+        interned into one shared table in the order they first appear, so
+        the ids match a sequential scan.
+     */
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private TokenBuffer tokens;
+    private TokenBuffer.Cursor cursor;
+
+    public ParallelCMinusScanner (File file) throws IOException {
+        this(ByteCMinusScanner.map(file));
+    }
+
+    public ParallelCMinusScanner (ByteBuffer source) {
+        this(source, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public ParallelCMinusScanner (ByteBuffer source, int chunkSize, ForkJoinPool pool) {
+        tokens = scan(source, chunkSize, pool);
+        cursor = tokens.cursor();
+    }
+
+    public TokenBuffer getTokens() {
+        return tokens;
+    }
+
+    public Token getNextToken() {
+        return cursor.getNextToken();
+    }
+
+    public Token viewNextToken() {
+        return cursor.viewNextToken();
+    }
+
+    // One chunk of the input and the result of scanning it
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        ByteBuffer source;
+        int start;
+        int end;
+        TokenBuffer tokens;
+        boolean endsInComment;
+
+        Chunk(ByteBuffer source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute() {
+            scanFrom(start);
+        }
+
+        // Scan from a position known to be outside a comment to the end of the chunk
+        void scanFrom(int from) {
+            ByteBuffer slice = source.duplicate();
+            slice.limit(end);
+            slice.position(from);
+            TableCMinusScanner scanner = new TableCMinusScanner(slice, new SymbolTable());
+            tokens = new TokenBuffer(scanner.getSymbolTable(), (end - from) / 3 + 16);
+            scanner.scanAll(tokens);
+            endsInComment = scanner.endedInComment();
+        }
+
+        // The speculation was wrong, the chunk starts inside a comment
+        void rescanInComment() {
+            int after = TableCMinusScanner.skipComment(source, start, end);
+            if (after < 0) {
+                // the comment covers the whole chunk
+                tokens = new TokenBuffer(new SymbolTable(), 16);
+                tokens.add(TokenType.EOF_TOKEN, end, 0, 0);
+                endsInComment = true;
+            } else {
+                scanFrom(after);
+            }
+        }
+    }
+
+    public static TokenBuffer scan(ByteBuffer source, int chunkSize, ForkJoinPool pool) {
+        List<Chunk> chunks = split(source, chunkSize);
+        if (chunks.size() == 1) {
+            return TokenBuffer.scan(new TableCMinusScanner(source));
+        }
+        pool.invoke(new RecursiveAction() {
+            protected void compute() {
+                ForkJoinTask.invokeAll(chunks);
+            }
+        });
+
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.tokens.size();
+        }
+        TokenBuffer result = new TokenBuffer(new SymbolTable(), total);
+        SymbolTable symbols = result.getSymbolTable();
+        result.setLineIndex(new LineIndex(source));
+
+        boolean inComment = false;
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            if (inComment) {
+                chunk.rescanInComment();
+            }
+            inComment = chunk.endsInComment;
+
+            // Map this chunk's symbol ids into the shared table, keywords keep their ids
+            SymbolTable local = chunk.tokens.getSymbolTable();
+            int[] symbolMap = new int[local.size()];
+            for (int id = 0; id < local.size(); id++) {
+                symbolMap[id] = SymbolTable.isKeyword(id) ? id : symbols.intern(local.name(id));
+            }
+
+            // Only the last chunk keeps its EOF token
+            int count = chunk.tokens.size();
+            if (i < chunks.size() - 1) {
+                count--;
+            }
+            result.append(chunk.tokens, 0, count, symbolMap);
+            chunk.tokens = null;
+        }
+        return result;
+    }
+
+    // Cut the input into chunks of about chunkSize bytes, each starting at a whitespace byte
+    static List<Chunk> split(ByteBuffer source, int chunkSize) {
+        List<Chunk> chunks = new ArrayList<Chunk>();
+        int start = source.position();
+        int limit = source.limit();
+        while (start < limit) {
+            int end = (int) Math.min((long) start + chunkSize, limit);
+            while (end < limit && !isSpace(source.get(end))) {
+                end++;
+            }
+            chunks.add(new Chunk(source, start, end));
+            start = end;
+        }
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk(source, start, limit));
+        }
+        return chunks;
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
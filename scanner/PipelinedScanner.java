@@ -0,0 +1,201 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.util.concurrent.locks.LockSupport;
+
+public class PipelinedScanner implements Scanner, AutoCloseable {
+    /*
+        Runs another Scanner on its own thread, so reading and scanning the
+        file overlaps with whatever consumes the tokens, usually the parser.
+
+        The scanner thread fills batches of tokens and publishes them into a
+        fixed ring of batches. There is exactly one producer and one
+        consumer, so the ring needs no lock: published and consumed are
+        counts of batches, each written by one side only, and the volatile
+        write of a count is what makes a batch visible to the other side.
+            - the consumer waits while published == consumed
+            - the producer waits while published - consumed == ring size,
+              so a slow parser holds the scanner back (backpressure)
+        A waiting side spins briefly, then parks until the other side moves.
+
+        A token's name and position can be read lazily from the scanner's
+        SymbolTable and LineIndex, which the scanner thread keeps adding
+        to and which are not thread-safe. So the scanner thread resolves
+        each token before publishing it, and the consumer only ever reads
+        the token's own fields.
+
+        If the scanner thread fails, for example with an UncheckedIOException
+        from CMinusScanner, the tokens scanned before the failure are still
+        delivered, then getNextToken throws the same exception on the
+        consumer's thread.
+
+        close() stops the scanner thread, for a parser that gives up early.
+     */
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int DEFAULT_BATCHES = 16;
+    private static final int SPINS = 100;
+
+    private Scanner source;
+    private Token[][] batches;
+    private int[] sizes;
+    private int mask;
+
+    // Batches published by the scanner thread and released by the consumer
+    private volatile int published;
+    private volatile int consumed;
+
+    // Set before the failing batch is published, so seeing that batch makes them visible
+    private Throwable failure;
+    private int failedBatch = -1;
+
+    private volatile boolean closed;
+    private volatile boolean producerWaiting;
+    private volatile boolean consumerWaiting;
+    private Thread producer;
+    private volatile Thread consumer;
+
+    // Consumer side: the batch being read and the position in it
+    private Token[] batch;
+    private int batchSize;
+    private int pos;
+
+    public PipelinedScanner (Scanner source) {
+        this(source, DEFAULT_BATCH_SIZE, DEFAULT_BATCHES);
+    }
+
+    // batches is rounded up to a power of two
+    public PipelinedScanner (Scanner source, int batchSize, int batches) {
+        int capacity = 1;
+        while (capacity < batches) {
+            capacity <<= 1;
+        }
+        this.source = source;
+        this.batches = new Token[capacity][Math.max(batchSize, 1)];
+        sizes = new int[capacity];
+        mask = capacity - 1;
+
+        producer = new Thread(this::produce, "C- scanner");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    public Token getNextToken() {
+        Token returnToken = current();
+        if(returnToken.getType() != TokenType.EOF_TOKEN){
+            pos++;
+        }
+        return returnToken;
+    }
+
+    public Token viewNextToken() {
+        return current();
+    }
+
+    public void close() {
+        closed = true;
+        LockSupport.unpark(producer);
+    }
+
+    // Scanner thread: fill batches until end of file, a failure or close()
+    private void produce() {
+        int sequence = 0;
+        boolean done = false;
+        while(!done){
+            if(!awaitSpace(sequence)){
+                return;
+            }
+            Token[] next = batches[sequence & mask];
+            int count = 0;
+            try {
+                while(count < next.length && !done){
+                    Token token = source.getNextToken();
+                    token.resolve();
+                    next[count++] = token;
+                    done = token.getType() == TokenType.EOF_TOKEN;
+                }
+            } catch (Throwable ex) {
+                failure = ex;
+                failedBatch = sequence;
+                done = true;
+            }
+            sizes[sequence & mask] = count;
+            sequence++;
+            published = sequence;
+            if(consumerWaiting){
+                LockSupport.unpark(consumer);
+            }
+        }
+    }
+
+    private boolean awaitSpace(int sequence) {
+        int spins = 0;
+        while(sequence - consumed == batches.length){
+            if(closed){
+                return false;
+            }
+            if(spins < SPINS){
+                Thread.onSpinWait();
+                spins++;
+            } else {
+                producerWaiting = true;
+                if(sequence - consumed == batches.length && !closed){
+                    LockSupport.park(this);
+                }
+                producerWaiting = false;
+            }
+        }
+        return !closed;
+    }
+
+    // The token at the read position, moving to the next batch when this one is used up
+    private Token current() {
+        while(true){
+            if(batch == null){
+                awaitBatch();
+                batch = batches[consumed & mask];
+                batchSize = sizes[consumed & mask];
+                pos = 0;
+            }
+            if(pos < batchSize){
+                return batch[pos];
+            }
+            if(consumed == failedBatch){
+                rethrow(failure);
+            }
+            // Hand the batch back to the scanner thread
+            batch = null;
+            consumed = consumed + 1;
+            if(producerWaiting){
+                LockSupport.unpark(producer);
+            }
+        }
+    }
+
+    private void awaitBatch() {
+        int spins = 0;
+        while(published == consumed){
+            if(spins < SPINS){
+                Thread.onSpinWait();
+                spins++;
+            } else {
+                consumer = Thread.currentThread();
+                consumerWaiting = true;
+                if(published == consumed){
+                    LockSupport.park(this);
+                }
+                consumerWaiting = false;
+            }
+        }
+    }
+
+    private static void rethrow(Throwable failure) {
+        if(failure instanceof RuntimeException){
+            throw (RuntimeException) failure;
+        }
+        if(failure instanceof Error){
+            throw (Error) failure;
+        }
+        throw new RuntimeException(failure);
+    }
+}
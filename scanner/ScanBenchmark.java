@@ -0,0 +1,164 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+public class ScanBenchmark {
+    /*
+        Throughput comparison of the scanner engines.
+
+        Usage: java scanner.ScanBenchmark <file> [rounds]
+
+        Every engine scans the whole file once per round. The first rounds
+        warm up the JIT, and the best round is reported for each engine.
+        Then the heap kept by the token stream, and the bytes CMinusScanner
+        allocates per token with and without shared tokens.
+     */
+
+    interface Engine {
+        // Scan the whole file and close what was opened for it, returning the number of tokens
+        long scan(File file) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java scanner.ScanBenchmark <file> [rounds]");
+            System.exit(1);
+        }
+        File file = new File(args[0]);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        String[] names = { "CMinusScanner (BufferedReader)", "BlockCMinusScanner", "MappedCMinusScanner",
+            "TableCMinusScanner" };
+        Engine[] engines = {
+            f -> {
+                try (BufferedReader in = new BufferedReader(new FileReader(f))) {
+                    return countTokens(new CMinusScanner(in));
+                }
+            },
+            f -> {
+                try (FileReader in = new FileReader(f)) {
+                    return countTokens(new BlockCMinusScanner(in));
+                }
+            },
+            f -> countTokens(new MappedCMinusScanner(f)),
+            f -> countTokens(new TableCMinusScanner(f))
+        };
+
+        System.out.println(file + ": " + file.length() + " bytes, " + rounds + " rounds");
+        for (int i = 0; i < engines.length; i++) {
+            long best = Long.MAX_VALUE;
+            long tokens = 0;
+            for (int r = 0; r < rounds; r++) {
+                long start = System.nanoTime();
+                tokens = engines[i].scan(file);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            double seconds = best / 1e9;
+            System.out.printf("%-32s %10d tokens %9.1f ms %8.1f MB/s %8.2f Mtok/s%n",
+                names[i], tokens, best / 1e6,
+                file.length() / seconds / (1024 * 1024), tokens / seconds / 1e6);
+        }
+
+        // Scanning straight into a TokenBuffer, with no Token objects
+        long best = Long.MAX_VALUE;
+        TokenBuffer buffer = null;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            buffer = TokenBuffer.scan(new TableCMinusScanner(file));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double seconds = best / 1e9;
+        System.out.printf("%-32s %10d tokens %9.1f ms %8.1f MB/s %8.2f Mtok/s%n",
+            "TableCMinusScanner.scanAll", buffer.size(), best / 1e6,
+            file.length() / seconds / (1024 * 1024), buffer.size() / seconds / 1e6);
+        buffer = null;
+
+        // Chunks scanned in parallel on the common ForkJoinPool
+        best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            buffer = new ParallelCMinusScanner(file).getTokens();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        seconds = best / 1e9;
+        System.out.printf("%-32s %10d tokens %9.1f ms %8.1f MB/s %8.2f Mtok/s%n",
+            "ParallelCMinusScanner (" + ForkJoinPool.commonPool().getParallelism() + " threads)",
+            buffer.size(), best / 1e6,
+            file.length() / seconds / (1024 * 1024), buffer.size() / seconds / 1e6);
+        buffer = null;
+
+        // Heap retained by the whole token stream, as Token objects and as a TokenBuffer
+        long before = usedMemory();
+        ArrayList<Token> list = new ArrayList<Token>();
+        Scanner scanner = new MappedCMinusScanner(file);
+        Token token;
+        do {
+            token = scanner.getNextToken();
+            list.add(token);
+        } while (token.getType() != TokenType.EOF_TOKEN);
+        long objectBytes = usedMemory() - before;
+        System.out.printf("Retained as Token objects: %,d bytes (%.1f bytes/token)%n",
+            objectBytes, (double) objectBytes / list.size());
+        list = null;
+
+        before = usedMemory();
+        buffer = TokenBuffer.scan(new MappedCMinusScanner(file));
+        long bufferBytes = usedMemory() - before;
+        System.out.printf("Retained as a TokenBuffer: %,d bytes (%.1f bytes/token)%n",
+            bufferBytes, (double) bufferBytes / buffer.size());
+        buffer = null;
+
+        // Garbage made while scanning, with a new Token per token and with shared tokens.
+        // The source is read into memory first so only the scanner is measured.
+        char[] text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1).toCharArray();
+        for (boolean shared : new boolean[] { false, true }) {
+            long allocated = 0;
+            long tokens = 0;
+            for (int r = 0; r < rounds; r++) {
+                SymbolTable symbols = new SymbolTable();
+                Scanner warm = new CMinusScanner(new BufferedReader(new CharArrayReader(text)), symbols, shared);
+                countTokens(warm);
+                // Scan again with the same symbol table, so no name is new
+                long start = allocatedBytes();
+                tokens = countTokens(new CMinusScanner(new BufferedReader(new CharArrayReader(text)), symbols, shared));
+                allocated = allocatedBytes() - start;
+            }
+            System.out.printf("%-32s %10d tokens %,13d bytes allocated (%.2f bytes/token)%n",
+                shared ? "CMinusScanner, shared tokens" : "CMinusScanner, Token per token",
+                tokens, allocated, (double) allocated / tokens);
+        }
+    }
+
+    // Bytes allocated by this thread so far
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    // Heap in use after a full collection
+    static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Drain a scanner, counting the tokens up to and including EOF
+    static long countTokens(Scanner scanner) {
+        long count = 1;
+        while (scanner.getNextToken().getType() != TokenType.EOF_TOKEN) {
+            count++;
+        }
+        return count;
+    }
+}
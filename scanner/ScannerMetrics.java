@@ -0,0 +1,151 @@
+package scanner;
+
+import scanner.CMinusScanner.StateType;
+import scanner.Token.TokenType;
+
+public final class ScannerMetrics {
+    /*
+        Hot-path counters for CMinusScanner, to see why a file lexes slowly.
+
+        Counting is switched on for the whole JVM with -Dscanner.metrics=true
+        (scanner.Main -metrics sets it). ENABLED is a static final, so when it
+        is false the JIT removes every counting branch from the scanner and
+        disabled metrics cost nothing.
+
+        When enabled, each scanner owns one ScannerMetrics and only its own
+        thread writes it, so the counters are plain longs: no locks, no
+        atomics, no sharing between threads. Take a snapshot() on that
+        thread, or after scanning, and add snapshots together with plus()
+        to total several scanners.
+
+        Counted:
+            characters read in each StateType, a pushed-back character
+            counts again when it is read again
+            tokens returned of each TokenType, including EOF
+            comment characters skipped, from the opening / to the closing /
+            pushbacks, characters read one too far and reset
+            wall time spent inside scanToken
+     */
+
+    public static final boolean ENABLED = Boolean.getBoolean("scanner.metrics");
+
+    private static final StateType[] STATES = StateType.values();
+    private static final TokenType[] TYPES = TokenType.values();
+
+    // Written by the owning scanner only
+    final long[] stateChars = new long[STATES.length];
+    final long[] tokens = new long[TYPES.length];
+    long commentChars;
+    long pushBacks;
+    long nanos;
+
+    public Snapshot snapshot() {
+        return new Snapshot(stateChars.clone(), tokens.clone(), commentChars, pushBacks, nanos);
+    }
+
+    public static final class Snapshot {
+        public static final Snapshot EMPTY = new Snapshot(new long[STATES.length], new long[TYPES.length], 0, 0, 0);
+
+        private final long[] stateChars;
+        private final long[] tokens;
+        private final long commentChars;
+        private final long pushBacks;
+        private final long nanos;
+
+        private Snapshot (long[] stateChars, long[] tokens, long commentChars, long pushBacks, long nanos) {
+            this.stateChars = stateChars;
+            this.tokens = tokens;
+            this.commentChars = commentChars;
+            this.pushBacks = pushBacks;
+            this.nanos = nanos;
+        }
+
+        public long chars(StateType state) {
+            return stateChars[state.ordinal()];
+        }
+
+        public long chars() {
+            long total = 0;
+            for (long count : stateChars) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long tokens(TokenType type) {
+            return tokens[type.ordinal()];
+        }
+
+        public long tokens() {
+            long total = 0;
+            for (long count : tokens) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long errorTokens() {
+            return tokens[TokenType.ERROR_TOKEN.ordinal()];
+        }
+
+        public long commentChars() {
+            return commentChars;
+        }
+
+        public long pushBacks() {
+            return pushBacks;
+        }
+
+        public long wallNanos() {
+            return nanos;
+        }
+
+        // The counts of both snapshots added together
+        public Snapshot plus(Snapshot other) {
+            long[] states = stateChars.clone();
+            for (int i = 0; i < states.length; i++) {
+                states[i] += other.stateChars[i];
+            }
+            long[] types = tokens.clone();
+            for (int i = 0; i < types.length; i++) {
+                types[i] += other.tokens[i];
+            }
+            return new Snapshot(states, types, commentChars + other.commentChars,
+                pushBacks + other.pushBacks, nanos + other.nanos);
+        }
+
+        // One JSON object, states and token types that never occurred are left out
+        public String toJson() {
+            StringBuilder json = new StringBuilder(1024);
+            json.append("{\n  \"chars\": ").append(chars());
+            json.append(",\n  \"charsByState\": {");
+            appendCounts(json, STATES, stateChars);
+            json.append("},\n  \"tokens\": ").append(tokens());
+            json.append(",\n  \"tokensByType\": {");
+            appendCounts(json, TYPES, tokens);
+            json.append("},\n  \"errorTokens\": ").append(errorTokens());
+            json.append(",\n  \"commentChars\": ").append(commentChars);
+            json.append(",\n  \"pushBacks\": ").append(pushBacks);
+            json.append(",\n  \"wallNanos\": ").append(nanos);
+            json.append("\n}\n");
+            return json.toString();
+        }
+
+        private static void appendCounts(StringBuilder json, Enum<?>[] names, long[] counts) {
+            boolean first = true;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    json.append(first ? "\n    \"" : ",\n    \"").append(names[i].name()).append("\": ").append(counts[i]);
+                    first = false;
+                }
+            }
+            if (!first) {
+                json.append("\n  ");
+            }
+        }
+
+        public String toString() {
+            return toJson();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public class ScannerTokenStream implements TokenStream {
+    /*
+        TokenStream read straight from a scanner's own state (see
+        TokenSource), so parsing makes no Token objects at all.
+
+        Tokens read ahead for kind(k) wait in a small ring of ints, kind,
+        value and start, the same way LookaheadScanner keeps Tokens. The
+        ring is made once, so reading the stream allocates nothing.
+
+        The source's current token is the first token of the stream, and
+        from then on the stream owns the source: reading the source as a
+        Scanner as well would lose tokens.
+     */
+
+    public static final int DEFAULT_LOOKAHEAD = 4;
+
+    private static final int EOF = TokenType.EOF_TOKEN.ordinal();
+
+    private TokenSource source;
+    private SymbolTable symbols;
+    private LineIndex lines;
+
+    private int[] kinds;
+    private int[] values;
+    private int[] starts;
+    private int mask;
+
+    // Ring index of the current token, and how many tokens have been read ahead
+    private int head;
+    private int count;
+
+    public ScannerTokenStream (TokenSource source) {
+        this(source, DEFAULT_LOOKAHEAD);
+    }
+
+    // lookahead is how many tokens can be seen at once, kind(lookahead - 1) is the furthest
+    public ScannerTokenStream (TokenSource source, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("lookahead must be at least 1: " + lookahead);
+        }
+        int capacity = 1;
+        while (capacity < lookahead) {
+            capacity <<= 1;
+        }
+        this.source = source;
+        symbols = source.getSymbolTable();
+        lines = source.getLineIndex();
+        kinds = new int[capacity];
+        values = new int[capacity];
+        starts = new int[capacity];
+        mask = capacity - 1;
+
+        kinds[0] = source.getTokenType().ordinal();
+        values[0] = source.getTokenValue();
+        starts[0] = source.getTokenStart();
+        count = 1;
+    }
+
+    // Read ahead until the token k places ahead is in the ring
+    private void fill(int k) {
+        if (k < 0 || k > mask) {
+            throw new IllegalArgumentException("can only look 0 to " + mask + " tokens ahead: " + k);
+        }
+        while (count <= k) {
+            int last = (head + count - 1) & mask;
+            int slot = (head + count) & mask;
+            if (kinds[last] == EOF) {
+                // Past the end is EOF again, without asking the scanner
+                kinds[slot] = EOF;
+                values[slot] = 0;
+                starts[slot] = starts[last];
+            } else {
+                try {
+                    kinds[slot] = source.scan().ordinal();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                values[slot] = source.getTokenValue();
+                starts[slot] = source.getTokenStart();
+            }
+            count++;
+        }
+    }
+
+    public int kind() {
+        fill(0);
+        return kinds[head];
+    }
+
+    public int kind(int k) {
+        fill(k);
+        return kinds[(head + k) & mask];
+    }
+
+    public int intValue() {
+        fill(0);
+        return values[head];
+    }
+
+    public String name() {
+        fill(0);
+        return symbols.name(values[head]);
+    }
+
+    // Offset of the current token in the source
+    public int start() {
+        fill(0);
+        return starts[head];
+    }
+
+    public int line() {
+        return (lines == null) ? 0 : lines.line(start());
+    }
+
+    public int column() {
+        return (lines == null) ? 0 : lines.column(start());
+    }
+
+    public void advance() {
+        fill(0);
+        if (kinds[head] != EOF) {
+            head = (head + 1) & mask;
+            count--;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class SymbolTable {
+    /*
+        String table owned by a scanner. Every distinct identifier gets a
+        stable int id, and its String is created only the first time the
+        name is seen.
+
+        The scanners hash an identifier's characters with hash() while they
+        read them, then look the characters up with intern(). The keywords
+        are loaded first, so they always have ids 0 to 5 and checking for a
+        keyword is just an id comparison.
+
+        Names are kept in one char pool, and the hash table is open
+        addressing over int slots, so a lookup allocates nothing.
+
+        token(id) gives one shared Token per symbol, for scanners that hand
+        out shared tokens. It is made the first time it is asked for.
+     */
+
+    public static final int ELSE = 0;
+    public static final int IF = 1;
+    public static final int RETURN = 2;
+    public static final int VOID = 3;
+    public static final int WHILE = 4;
+    public static final int INT = 5;
+    public static final int KEYWORD_COUNT = 6;
+
+    private static final String[] KEYWORDS = { "else", "if", "return", "void", "while", "int" };
+    private static final TokenType[] KEYWORD_TYPES = {
+        TokenType.ELSE_TOKEN,
+        TokenType.IF_TOKEN,
+        TokenType.RETURN_TOKEN,
+        TokenType.VOID_TOKEN,
+        TokenType.WHILE_TOKEN,
+        TokenType.INT_TOKEN
+    };
+
+    // slots hold id + 1, 0 is an empty slot
+    private int[] slots = new int[256];
+    private int[] hashes = new int[64];
+    private int[] offsets = new int[64];
+    private int[] lengths = new int[64];
+    private String[] names = new String[64];
+    private Token[] tokens = new Token[0];
+    private char[] pool = new char[1024];
+    private int poolSize;
+    private int size;
+
+    public SymbolTable() {
+        for (String keyword : KEYWORDS) {
+            intern(keyword);
+        }
+    }
+
+    // One step of the identifier hash, the same function as String.hashCode()
+    public static int hash(int hash, int c) {
+        return 31 * hash + c;
+    }
+
+    public static boolean isKeyword(int id) {
+        return id < KEYWORD_COUNT;
+    }
+
+    public static TokenType keywordType(int id) {
+        return KEYWORD_TYPES[id];
+    }
+
+    // Token type for a symbol: its keyword type, or IDENT_TOKEN
+    public static TokenType tokenType(int id) {
+        return id < KEYWORD_COUNT ? KEYWORD_TYPES[id] : TokenType.IDENT_TOKEN;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    // The shared token for a symbol: the keyword's token, or an IDENT_TOKEN with the name
+    public Token token(int id) {
+        if (id < KEYWORD_COUNT) {
+            return Token.of(KEYWORD_TYPES[id]);
+        }
+        if (id >= tokens.length) {
+            tokens = Arrays.copyOf(tokens, names.length);
+        }
+        Token token = tokens[id];
+        if (token == null) {
+            token = Token.shared(TokenType.IDENT_TOKEN, names[id]);
+            tokens[id] = token;
+        }
+        return token;
+    }
+
+    public int intern(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = hash(hash, name.charAt(i));
+        }
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && lengths[id] == name.length() && equals(id, name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, hash, name);
+    }
+
+    public int intern(char[] text, int start, int length, int hash) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && lengths[id] == length
+                && Arrays.equals(pool, offsets[id], offsets[id] + length, text, start, start + length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, hash, new String(text, start, length));
+    }
+
+    public int intern(ByteBuffer text, int start, int length, int hash) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && lengths[id] == length && equals(id, text, start)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (text.get(start + i) & 0xFF);
+        }
+        return add(slot, hash, new String(chars));
+    }
+
+    private boolean equals(int id, String name) {
+        int offset = offsets[id];
+        for (int i = 0; i < lengths[id]; i++) {
+            if (pool[offset + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equals(int id, ByteBuffer text, int start) {
+        int offset = offsets[id];
+        for (int i = 0; i < lengths[id]; i++) {
+            if (pool[offset + i] != (text.get(start + i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Spread the low bits, since identifier hashes of short names cluster
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int add(int slot, int hash, String name) {
+        if (size == names.length) {
+            int capacity = size * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        int length = name.length();
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+        name.getChars(0, length, pool, poolSize);
+
+        int id = size++;
+        hashes[id] = hash;
+        offsets[id] = poolSize;
+        lengths[id] = length;
+        names[id] = name;
+        poolSize += length;
+        slots[slot] = id + 1;
+
+        // Keep the table at most half full
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+}
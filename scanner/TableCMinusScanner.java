@@ -0,0 +1,279 @@
+package scanner;
+
+import scanner.CMinusScanner.StateType;
+import scanner.Token.TokenType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class TableCMinusScanner extends ByteCMinusScanner {
+    /*
+        Table-driven version of the StateType DFA.
+
+        Every byte is mapped to a character class through a 128 entry table
+        (bytes above 127 are OTHER), and the next step comes from a dense
+        state x class transition table. There are no Character.isDigit or
+        isLetter calls and no switch on the state, so the loop body is the
+        same two table lookups for every character.
+
+        Each table entry packs
+            bits 0-7   - row of the next state (state ordinal * CLASS_COUNT)
+            bit  8     - ACCEPT, the token is finished
+            bit  9     - PUSHBACK, the character is not part of the token
+            bit  10    - MARK, the token starts at this character
+            bits 16-23 - TokenType ordinal of an accepted token
+
+        The table is built from the same transitions as CMinusScanner.scanToken(),
+        so it gives the same tokens, including the INERROR handling of things
+        like abc123.
+
+        Runs of white space in START and comment text in INCOMMENT skip the
+        table and jump ahead 8 bytes at a time with skipSpace and nextStar.
+        Both states stay where they are on every byte they skip, so the
+        tokens are the same.
+     */
+
+    // Character classes
+    static final int DIGIT = 0;
+    static final int LETTER = 1;
+    static final int SPACE = 2;
+    static final int BANG = 3;
+    static final int LESS = 4;
+    static final int GREATER = 5;
+    static final int EQUAL = 6;
+    static final int SLASH = 7;
+    static final int STAR = 8;
+    static final int PLUS = 9;
+    static final int MINUS = 10;
+    static final int SEMI = 11;
+    static final int COMMA = 12;
+    static final int LEFT_PAREN = 13;
+    static final int RIGHT_PAREN = 14;
+    static final int LEFT_BRACKET = 15;
+    static final int RIGHT_BRACKET = 16;
+    static final int LEFT_BRACE = 17;
+    static final int RIGHT_BRACE = 18;
+    static final int OTHER = 19;
+    static final int EOF = 20;
+    static final int CLASS_COUNT = 21;
+
+    static final int ROW_MASK = 0xFF;
+    static final int ACCEPT = 1 << 8;
+    static final int PUSHBACK = 1 << 9;
+    static final int MARK = 1 << 10;
+    static final int TYPE_SHIFT = 16;
+
+    static final int START_ROW = StateType.START.ordinal() * CLASS_COUNT;
+    static final int COMMENT_ROW = StateType.INCOMMENT.ordinal() * CLASS_COUNT;
+
+    static final byte[] CLASSES = new byte[128];
+    static final int[] TABLE = new int[StateType.values().length * CLASS_COUNT];
+    private static final TokenType[] TYPES = TokenType.values();
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            CLASSES[c] = OTHER;
+        }
+        for (int c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        for (int c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LETTER;
+            CLASSES[c - 'a' + 'A'] = LETTER;
+        }
+        CLASSES[' '] = SPACE;
+        CLASSES['\t'] = SPACE;
+        CLASSES['\n'] = SPACE;
+        CLASSES['\r'] = SPACE;
+        CLASSES['!'] = BANG;
+        CLASSES['<'] = LESS;
+        CLASSES['>'] = GREATER;
+        CLASSES['='] = EQUAL;
+        CLASSES['/'] = SLASH;
+        CLASSES['*'] = STAR;
+        CLASSES['+'] = PLUS;
+        CLASSES['-'] = MINUS;
+        CLASSES[';'] = SEMI;
+        CLASSES[','] = COMMA;
+        CLASSES['('] = LEFT_PAREN;
+        CLASSES[')'] = RIGHT_PAREN;
+        CLASSES['['] = LEFT_BRACKET;
+        CLASSES[']'] = RIGHT_BRACKET;
+        CLASSES['{'] = LEFT_BRACE;
+        CLASSES['}'] = RIGHT_BRACE;
+
+        // START: go to DONE for single-character tokens, go to an intermediate state for multiple-character tokens
+        StateType s = StateType.START;
+        set(s, DIGIT, go(StateType.INNUM) | MARK);
+        set(s, LETTER, go(StateType.INID) | MARK);
+        set(s, SPACE, go(StateType.START));
+        set(s, BANG, go(StateType.INNOT_EQUAL) | MARK);
+        set(s, LESS, go(StateType.INLESS) | MARK);
+        set(s, GREATER, go(StateType.INGREATER) | MARK);
+        set(s, EQUAL, go(StateType.INEQUAL) | MARK);
+        set(s, SLASH, go(StateType.INDIVIDE) | MARK);
+        set(s, STAR, accept(TokenType.MULT_TOKEN) | MARK);
+        set(s, PLUS, accept(TokenType.PLUS_TOKEN) | MARK);
+        set(s, MINUS, accept(TokenType.MINUS_TOKEN) | MARK);
+        set(s, SEMI, accept(TokenType.SEMI_TOKEN) | MARK);
+        set(s, COMMA, accept(TokenType.COMMA_TOKEN) | MARK);
+        set(s, LEFT_PAREN, accept(TokenType.LEFT_PAREN_TOKEN) | MARK);
+        set(s, RIGHT_PAREN, accept(TokenType.RIGHT_PAREN_TOKEN) | MARK);
+        set(s, LEFT_BRACKET, accept(TokenType.LEFT_BRACKET_TOKEN) | MARK);
+        set(s, RIGHT_BRACKET, accept(TokenType.RIGHT_BRACKET_TOKEN) | MARK);
+        set(s, LEFT_BRACE, accept(TokenType.LEFT_BRACE_TOKEN) | MARK);
+        set(s, RIGHT_BRACE, accept(TokenType.RIGHT_BRACE_TOKEN) | MARK);
+        set(s, OTHER, accept(TokenType.ERROR_TOKEN) | MARK);
+        set(s, EOF, accept(TokenType.EOF_TOKEN) | PUSHBACK | MARK);
+
+        // INID: letters continue, a digit makes it an error token
+        otherwise(StateType.INID, accept(TokenType.IDENT_TOKEN) | PUSHBACK);
+        set(StateType.INID, LETTER, go(StateType.INID));
+        set(StateType.INID, DIGIT, go(StateType.INERROR));
+
+        // INNUM: digits continue, a letter makes it an error token
+        otherwise(StateType.INNUM, accept(TokenType.NUM_TOKEN) | PUSHBACK);
+        set(StateType.INNUM, DIGIT, go(StateType.INNUM));
+        set(StateType.INNUM, LETTER, go(StateType.INERROR));
+
+        otherwise(StateType.INDIVIDE, accept(TokenType.DIVIDE_TOKEN) | PUSHBACK);
+        set(StateType.INDIVIDE, STAR, go(StateType.INCOMMENT));
+
+        otherwise(StateType.INCOMMENT, go(StateType.INCOMMENT));
+        set(StateType.INCOMMENT, STAR, go(StateType.INEND_COMMENT));
+        set(StateType.INCOMMENT, EOF, accept(TokenType.EOF_TOKEN) | PUSHBACK);
+
+        otherwise(StateType.INEND_COMMENT, go(StateType.INCOMMENT));
+        set(StateType.INEND_COMMENT, SLASH, go(StateType.START));
+        set(StateType.INEND_COMMENT, EOF, accept(TokenType.EOF_TOKEN) | PUSHBACK);
+
+        otherwise(StateType.INLESS, accept(TokenType.LESS_TOKEN) | PUSHBACK);
+        set(StateType.INLESS, EQUAL, accept(TokenType.LESS_EQUAL_TOKEN));
+
+        otherwise(StateType.INGREATER, accept(TokenType.GREATER_TOKEN) | PUSHBACK);
+        set(StateType.INGREATER, EQUAL, accept(TokenType.GREATER_EQUAL_TOKEN));
+
+        otherwise(StateType.INEQUAL, accept(TokenType.ASSIGN_TOKEN) | PUSHBACK);
+        set(StateType.INEQUAL, EQUAL, accept(TokenType.EQUAL_TOKEN));
+
+        otherwise(StateType.INNOT_EQUAL, accept(TokenType.ERROR_TOKEN) | PUSHBACK);
+        set(StateType.INNOT_EQUAL, EQUAL, accept(TokenType.NOT_EQUAL_TOKEN));
+
+        // INERROR: read to the end of the error token, so abc1234 is one error and not abc1 then 234
+        otherwise(StateType.INERROR, accept(TokenType.ERROR_TOKEN) | PUSHBACK);
+        set(StateType.INERROR, LETTER, go(StateType.INERROR));
+        set(StateType.INERROR, DIGIT, go(StateType.INERROR));
+
+        // DONE is never entered, accepting there just keeps a bad table from looping
+        otherwise(StateType.DONE, accept(TokenType.ERROR_TOKEN));
+    }
+
+    private static int go(StateType next) {
+        return next.ordinal() * CLASS_COUNT;
+    }
+
+    private static int accept(TokenType type) {
+        return ACCEPT | (type.ordinal() << TYPE_SHIFT);
+    }
+
+    private static void set(StateType state, int charClass, int action) {
+        TABLE[state.ordinal() * CLASS_COUNT + charClass] = action;
+    }
+
+    private static void otherwise(StateType state, int action) {
+        for (int charClass = 0; charClass < CLASS_COUNT; charClass++) {
+            set(state, charClass, action);
+        }
+    }
+
+    // Run the table from inside a comment, returns the position just after the comment
+    // closes or -1 if it is still open at end
+    static int skipComment(ByteBuffer buffer, int from, int end) {
+        int row = COMMENT_ROW;
+        for(int pos = from; pos < end; pos++){
+            if(row == COMMENT_ROW){
+                pos = nextStar(buffer, pos, end);
+                if(pos == end){
+                    break;
+                }
+            }
+            int c = buffer.get(pos);
+            row = TABLE[row + ((c >= 0) ? CLASSES[c] : OTHER)] & ROW_MASK;
+            if(row == START_ROW){
+                return pos + 1;
+            }
+        }
+        return -1;
+    }
+
+    // Whether the last EOF_TOKEN was reached inside a comment.
+    // Not initialized here, since the first scan() runs before subclass initializers.
+    private boolean eofInComment;
+
+    public boolean endedInComment() {
+        return eofInComment;
+    }
+
+    public TableCMinusScanner (File file) throws IOException {
+        this(map(file));
+    }
+
+    public TableCMinusScanner (ByteBuffer source) {
+        this(source, new SymbolTable());
+    }
+
+    public TableCMinusScanner (ByteBuffer source, SymbolTable table) {
+        super(source, table);
+    }
+
+    public TokenType scan() {
+        int row = START_ROW;
+        pos = skipSpace(buffer, pos, limit);
+        int start = pos;
+        int action;
+
+        // The identifier hash is updated for every character without a branch.
+        // lastHash is the hash without the current character, for when it is pushed back.
+        int hash = 0;
+        int lastHash = 0;
+
+        // Two table lookups per character until the table says the token is finished
+        while(true){
+            int c;
+            int charClass;
+            if(pos < limit){
+                c = buffer.get(pos);
+                charClass = (c >= 0) ? CLASSES[c] : OTHER;
+            } else {
+                c = -1;
+                charClass = EOF;
+            }
+            pos++;
+            action = TABLE[row + charClass];
+            lastHash = hash;
+            hash = SymbolTable.hash(hash, c);
+            if((action & MARK) != 0){
+                start = pos - 1;
+                lastHash = 0;
+                hash = c;
+            }
+            if((action & ACCEPT) != 0){
+                break;
+            }
+            row = action & ROW_MASK;
+            if(row == COMMENT_ROW){
+                pos = nextStar(buffer, pos, limit);
+            } else if(row == START_ROW){
+                pos = skipSpace(buffer, pos, limit);
+            }
+        }
+        if((action & PUSHBACK) != 0){
+            pos--;
+            hash = lastHash;
+        }
+        eofInComment = (action >>> TYPE_SHIFT) == TokenType.EOF_TOKEN.ordinal()
+            && row != START_ROW;
+
+        return finish(TYPES[action >>> TYPE_SHIFT], start, hash);
+    }
+}
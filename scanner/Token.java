@@ -37,6 +37,30 @@ public class Token {
     
     private TokenType tokenType;
     private Object tokenData;
+
+    // Where the token is in the source. offset is -1 when it is not known.
+    private int offset = -1;
+    private int length;
+    private LineIndex lines;
+
+    // NUM value or IDENT symbol id, only turned into tokenData when getData() is called
+    private int value;
+    private SymbolTable symbols;
+    private boolean lazyData;
+
+    // Line and column once resolve() has fixed them, 0 otherwise
+    private int line;
+    private int column;
+
+    // Shared tokens are handed out to every caller, so they never change
+    private boolean shared;
+    private static final Token[] SHARED = new Token[TokenType.values().length];
+
+    static {
+        for (TokenType type : TokenType.values()) {
+            SHARED[type.ordinal()] = shared(type, null);
+        }
+    }
     
     public Token (TokenType type){
         this(type, null);
@@ -46,24 +70,110 @@ public class Token {
         tokenType = type;
         tokenData = data;
     }
+
+    // A token at offset in the source. value is the number of a NUM token or the symbol
+    // id of an IDENT token in symbols, and is ignored for other tokens.
+    public Token(TokenType type, int value, SymbolTable symbols, int offset, int length, LineIndex lines){
+        tokenType = type;
+        this.value = value;
+        this.symbols = symbols;
+        this.offset = offset;
+        this.length = length;
+        this.lines = lines;
+        lazyData = (type == TokenType.NUM_TOKEN) || (type == TokenType.IDENT_TOKEN && symbols != null);
+    }
+    
+    // The shared token of a type, with no data and no position
+    public static Token of(TokenType type){
+        return SHARED[type.ordinal()];
+    }
+
+    // A new shared token. data is set now, so reading it never writes the token.
+    static Token shared(TokenType type, Object data){
+        Token token = new Token(type, data);
+        token.shared = true;
+        return token;
+    }
+
+    public boolean isShared (){
+        return shared;
+    }
     
     public TokenType getType (){
         return tokenType;
     }
     
     public Object getData (){
+        if(lazyData){
+            if(tokenType == TokenType.NUM_TOKEN){
+                tokenData = value;
+            } else {
+                tokenData = symbols.name(value);
+            }
+            lazyData = false;
+        }
         return tokenData;
     }
     
     public void setData(Object data){
+        if(shared){
+            throw new UnsupportedOperationException("shared " + tokenType + " token cannot be changed");
+        }
         tokenData = data;
+        lazyData = false;
+    }
+
+    // Fill in the data, line and column now, so the token no longer reads its scanner's
+    // SymbolTable and LineIndex, which the scanner may still be adding to on another thread
+    void resolve(){
+        if(shared){
+            return;
+        }
+        getData();
+        if(lines != null && offset >= 0){
+            line = lines.line(offset);
+            column = lines.column(offset);
+        }
+        lines = null;
+        symbols = null;
+    }
+
+    // Value of a NUM token without boxing it
+    public int getIntValue (){
+        if(lazyData){
+            return value;
+        }
+        return (Integer) tokenData;
+    }
+
+    public int getOffset (){
+        return offset;
+    }
+
+    public int getLength (){
+        return length;
+    }
+
+    // Line and column of the first character, 0 when the position is not known
+    public int getLine (){
+        if(lines == null || offset < 0){
+            return line;
+        }
+        return lines.line(offset);
+    }
+
+    public int getColumn (){
+        if(lines == null || offset < 0){
+            return column;
+        }
+        return lines.column(offset);
     }
     
     public String toString (){
         String returnString = "";
         
         returnString += tokenType;
-        if(tokenData != null){
+        if(getData() != null){
             returnString += " " + tokenData;
         }
         returnString += "\n";
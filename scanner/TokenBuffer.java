@@ -0,0 +1,290 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.util.Arrays;
+
+public class TokenBuffer {
+    /*
+        A whole token stream stored as parallel primitive arrays instead of
+        one Token object per token. Token i is described by
+            types[i]   - TokenType ordinal
+            starts[i]  - offset of its first character in the source (-1 if unknown)
+            lengths[i] - number of source characters it covers
+            values[i]  - the number for NUM, the symbol id for IDENT, 0 otherwise
+
+        Identifier names live in a SymbolTable and are referred to by id.
+        A buffer filled by a scanner shares the scanner's table, and its
+        LineIndex, so token(i) can give line and column.
+        A buffer filled by a scanner always ends with an EOF_TOKEN.
+     */
+
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_INITIAL_CAPACITY = 1 << 16;
+
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] values;
+    private int size;
+
+    private SymbolTable symbols;
+    private LineIndex lines;
+
+    public TokenBuffer() {
+        this(new SymbolTable());
+    }
+
+    public TokenBuffer(SymbolTable table) {
+        this(table, INITIAL_CAPACITY);
+    }
+
+    public TokenBuffer(SymbolTable table, int capacity) {
+        symbols = table;
+        capacity = Math.max(capacity, 16);
+        types = new byte[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        values = new int[capacity];
+    }
+
+    // Scan a whole source straight into a new buffer, without building Token objects
+    public static TokenBuffer scan(ByteCMinusScanner scanner) {
+        // C- averages a few bytes per token; a small source gets its arrays at once,
+        // a large one starts at MAX_INITIAL_CAPACITY and grows as tokens are added
+        int capacity = Math.min(MAX_INITIAL_CAPACITY, scanner.remaining() / 3 + 16);
+        TokenBuffer buffer = new TokenBuffer(scanner.getSymbolTable(), capacity);
+        buffer.setLineIndex(scanner.getLineIndex());
+        scanner.scanAll(buffer);
+        buffer.trimToSize();
+        return buffer;
+    }
+
+    // Drain any scanner into a new buffer. Tokens without a position get start -1.
+    public static TokenBuffer from(Scanner scanner) {
+        TokenBuffer buffer = new TokenBuffer();
+        Token token;
+        do {
+            token = scanner.getNextToken();
+            buffer.add(token);
+        } while (token.getType() != TokenType.EOF_TOKEN);
+        buffer.trimToSize();
+        return buffer;
+    }
+
+    public void add(TokenType type, int start, int length, int value) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        values[size] = value;
+        size++;
+    }
+
+    public void add(Token token) {
+        int value = 0;
+        if (token.getType() == TokenType.NUM_TOKEN) {
+            value = (Integer) token.getData();
+        } else if (token.getType() == TokenType.IDENT_TOKEN) {
+            value = nameId((String) token.getData());
+        }
+        add(token.getType(), token.getOffset(), token.getLength(), value);
+    }
+
+    // Append tokens from to end of another buffer, translating its symbol ids through symbolMap
+    public void append(TokenBuffer other, int from, int end, int[] symbolMap) {
+        int count = end - from;
+        if (size + count > types.length) {
+            resize(Math.max(size + count, types.length * 2));
+        }
+        System.arraycopy(other.types, from, types, size, count);
+        System.arraycopy(other.starts, from, starts, size, count);
+        System.arraycopy(other.lengths, from, lengths, size, count);
+        int ident = TokenType.IDENT_TOKEN.ordinal();
+        for (int i = 0; i < count; i++) {
+            int value = other.values[from + i];
+            values[size + i] = (other.types[from + i] == ident) ? symbolMap[value] : value;
+        }
+        size += count;
+    }
+
+    // Replace tokens from to end with all of other's tokens, and move the starts of the
+    // tokens after them by shift. other must share this buffer's SymbolTable.
+    public void splice(int from, int end, TokenBuffer other, int shift) {
+        int count = other.size;
+        int tail = size - end;
+        int newSize = from + count + tail;
+        if (newSize > types.length) {
+            resize(Math.max(newSize, types.length * 2));
+        }
+        System.arraycopy(types, end, types, from + count, tail);
+        System.arraycopy(starts, end, starts, from + count, tail);
+        System.arraycopy(lengths, end, lengths, from + count, tail);
+        System.arraycopy(values, end, values, from + count, tail);
+        System.arraycopy(other.types, 0, types, from, count);
+        System.arraycopy(other.starts, 0, starts, from, count);
+        System.arraycopy(other.lengths, 0, lengths, from, count);
+        System.arraycopy(other.values, 0, values, from, count);
+        for (int i = from + count; i < newSize; i++) {
+            starts[i] += shift;
+        }
+        size = newSize;
+    }
+
+    private void grow() {
+        resize(types.length * 2);
+    }
+
+    // Drop the spare capacity once the buffer is complete
+    public void trimToSize() {
+        if (size < types.length) {
+            resize(Math.max(size, 16));
+        }
+    }
+
+    private void resize(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    // Symbol id of an identifier name, adding it the first time it is seen
+    public int nameId(String name) {
+        return symbols.intern(name);
+    }
+
+    public String name(int id) {
+        return symbols.name(id);
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    public LineIndex getLineIndex() {
+        return lines;
+    }
+
+    public void setLineIndex(LineIndex index) {
+        lines = index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TokenType type(int i) {
+        return TYPES[types[i]];
+    }
+
+    public int kind(int i) {
+        return types[i];
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int length(int i) {
+        return lengths[i];
+    }
+
+    public int value(int i) {
+        return values[i];
+    }
+
+    // Build a Token for token i, for code that still works with Token objects
+    public Token token(int i) {
+        LineIndex index = (starts[i] < 0) ? null : lines;
+        return new Token(TYPES[types[i]], values[i], symbols, starts[i], lengths[i], index);
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public class Cursor implements Scanner, TokenStream {
+        /*
+            Walks the buffer one token at a time. The parser can read the
+            current token's kind and value as primitives and advance
+            explicitly, or use it as a Scanner through getNextToken and
+            viewNextToken, which build Tokens on demand.
+            The cursor stays on the EOF token once it reaches it.
+         */
+
+        private int index;
+
+        public int index() {
+            return index;
+        }
+
+        public TokenType type() {
+            return TYPES[types[index]];
+        }
+
+        public int kind() {
+            return types[index];
+        }
+
+        // Past the end gives the EOF token's kind
+        public int kind(int k) {
+            return types[(int) Math.min((long) index + k, size - 1)];
+        }
+
+        public boolean is(TokenType type) {
+            return types[index] == type.ordinal();
+        }
+
+        public int intValue() {
+            return values[index];
+        }
+
+        public int nameId() {
+            return values[index];
+        }
+
+        public String name() {
+            return symbols.name(values[index]);
+        }
+
+        public int start() {
+            return starts[index];
+        }
+
+        public int length() {
+            return lengths[index];
+        }
+
+        public int line() {
+            return (lines == null || starts[index] < 0) ? 0 : lines.line(starts[index]);
+        }
+
+        public int column() {
+            return (lines == null || starts[index] < 0) ? 0 : lines.column(starts[index]);
+        }
+
+        public void advance() {
+            if (index < size - 1) {
+                index++;
+            }
+        }
+
+        public Token getNextToken() {
+            Token returnToken = token(index);
+            advance();
+            return returnToken;
+        }
+
+        public Token viewNextToken() {
+            return token(index);
+        }
+
+        // The whole buffer is already scanned, so any k works. Past the end gives the EOF token.
+        public Token peek(int k) {
+            return token((int) Math.min((long) index + k, size - 1));
+        }
+    }
+}
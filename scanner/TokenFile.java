@@ -0,0 +1,101 @@
+package scanner;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class TokenFile {
+    /*
+        The .ctok binary token file, a scanned C- file saved so later stages
+        can load the tokens instead of scanning again. TokenFileScanner
+        reads it back.
+
+        All numbers are big-endian ints, and every section starts on a
+        multiple of 4 bytes so it can be read straight from a mapped file.
+            header      magic "CTOK", version, flags, token count,
+                        symbol count, line count
+            symbols     for each symbol id in order: byte length, UTF-8 name.
+                        The keywords come first, as in every SymbolTable.
+            types       one TokenType ordinal byte per token
+            values      NUM value, IDENT symbol id, 0 otherwise
+        and with the POSITIONS flag
+            starts      offset of each token in the source
+            lengths     length of each token
+            line starts offset where each line of the source starts
+
+        A reader must refuse a file whose version it does not know. Adding
+        a TokenType or changing a section means a new VERSION.
+     */
+
+    public static final int MAGIC = 0x43544F4B;
+    public static final int VERSION = 1;
+
+    // Flags
+    public static final int POSITIONS = 1;
+
+    public static final int HEADER_SIZE = 6 * 4;
+
+    // Scan a whole file with scanner and save its tokens, with positions
+    public static void write(CMinusScanner scanner, File file) throws IOException {
+        TokenBuffer tokens = TokenBuffer.from(scanner);
+        tokens.setLineIndex(scanner.getLineIndex());
+        write(tokens, file);
+    }
+
+    // Save a scanned buffer. Positions are saved if every token has one and the buffer has a LineIndex.
+    public static void write(TokenBuffer tokens, File file) throws IOException {
+        int count = tokens.size();
+        boolean positions = tokens.getLineIndex() != null;
+        for (int i = 0; i < count && positions; i++) {
+            positions = tokens.start(i) >= 0;
+        }
+        SymbolTable symbols = tokens.getSymbolTable();
+        LineIndex lines = tokens.getLineIndex();
+        int lineCount = positions ? lines.lineCount() : 0;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(positions ? POSITIONS : 0);
+            out.writeInt(count);
+            out.writeInt(symbols.size());
+            out.writeInt(lineCount);
+
+            for (int id = 0; id < symbols.size(); id++) {
+                byte[] name = symbols.name(id).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+            pad(out);
+
+            for (int i = 0; i < count; i++) {
+                out.writeByte(tokens.kind(i));
+            }
+            pad(out);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(tokens.value(i));
+            }
+
+            if (positions) {
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(tokens.start(i));
+                }
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(tokens.length(i));
+                }
+                for (int line = 1; line <= lineCount; line++) {
+                    out.writeInt(lines.lineStart(line));
+                }
+            }
+        }
+    }
+
+    private static void pad(DataOutputStream out) throws IOException {
+        while (out.size() % 4 != 0) {
+            out.writeByte(0);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class TokenFileScanner implements Scanner {
+    /*
+        Reads a .ctok file (see TokenFile) back as a Scanner, so a parser can
+        take saved tokens without scanning the source again.
+
+        The file is memory-mapped and the token sections are read in place,
+        so loading only reads the header, the symbol names and the line
+        starts. A Token is only made when getNextToken or viewNextToken asks
+        for one. The primitive accessors kind(i), value(i) and so on make
+        nothing at all.
+     */
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private ByteBuffer buffer;
+    private int count;
+    private SymbolTable symbols;
+    private LineIndex lines;
+
+    // Where each section starts in the file, starts and lengths are -1 without positions
+    private int typesAt;
+    private int valuesAt;
+    private int startsAt = -1;
+    private int lengthsAt = -1;
+
+    private int index;
+
+    public TokenFileScanner (File file) throws IOException {
+        this(ByteCMinusScanner.map(file));
+    }
+
+    public TokenFileScanner (ByteBuffer source) throws IOException {
+        buffer = source;
+        if (source.limit() < TokenFile.HEADER_SIZE || source.getInt(0) != TokenFile.MAGIC) {
+            throw new IOException("not a .ctok token file");
+        }
+        int version = source.getInt(4);
+        if (version != TokenFile.VERSION) {
+            throw new IOException("unsupported .ctok version " + version + ", expected " + TokenFile.VERSION);
+        }
+        boolean positions = (source.getInt(8) & TokenFile.POSITIONS) != 0;
+        count = source.getInt(12);
+        int symbolCount = source.getInt(16);
+        int lineCount = source.getInt(20);
+        if (count < 1 || symbolCount < SymbolTable.KEYWORD_COUNT || lineCount < 0) {
+            throw new IOException("corrupt .ctok header");
+        }
+
+        // Symbols are interned in id order, so they get the ids they were saved with
+        symbols = new SymbolTable();
+        int at = TokenFile.HEADER_SIZE;
+        byte[] name = new byte[64];
+        for (int id = 0; id < symbolCount; id++) {
+            int length = source.getInt(at);
+            at += 4;
+            if (length < 0 || at + length > source.limit()) {
+                throw new IOException("corrupt .ctok symbol table");
+            }
+            if (name.length < length) {
+                name = new byte[Math.max(length, name.length * 2)];
+            }
+            source.get(at, name, 0, length);
+            at += length;
+            if (symbols.intern(new String(name, 0, length, StandardCharsets.UTF_8)) != id) {
+                throw new IOException("corrupt .ctok symbol table");
+            }
+        }
+        at = align(at);
+
+        typesAt = at;
+        valuesAt = align(typesAt + count);
+        int end = valuesAt + 4 * count;
+        if (positions) {
+            startsAt = end;
+            lengthsAt = startsAt + 4 * count;
+            end = lengthsAt + 4 * count;
+            int[] lineStarts = new int[Math.max(lineCount, 1)];
+            for (int line = 0; line < lineCount; line++) {
+                lineStarts[line] = source.getInt(end + 4 * line);
+            }
+            end += 4 * lineCount;
+            lines = new LineIndex(lineStarts, Math.max(lineCount, 1));
+        }
+        if (end > source.limit()) {
+            throw new IOException("truncated .ctok file");
+        }
+    }
+
+    private static int align(int at) {
+        return (at + 3) & ~3;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    public LineIndex getLineIndex() {
+        return lines;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int kind(int i) {
+        return buffer.get(typesAt + i);
+    }
+
+    public TokenType type(int i) {
+        return TYPES[buffer.get(typesAt + i)];
+    }
+
+    public int value(int i) {
+        return buffer.getInt(valuesAt + 4 * i);
+    }
+
+    // Offset of token i in the source, -1 if the file has no positions
+    public int start(int i) {
+        return (startsAt < 0) ? -1 : buffer.getInt(startsAt + 4 * i);
+    }
+
+    public int length(int i) {
+        return (lengthsAt < 0) ? 0 : buffer.getInt(lengthsAt + 4 * i);
+    }
+
+    public Token token(int i) {
+        return new Token(type(i), value(i), symbols, start(i), length(i), lines);
+    }
+
+    // Copy everything into a TokenBuffer, for code that wants the arrays
+    public TokenBuffer toTokenBuffer() {
+        TokenBuffer tokens = new TokenBuffer(symbols, count);
+        tokens.setLineIndex(lines);
+        for (int i = 0; i < count; i++) {
+            tokens.add(type(i), start(i), length(i), value(i));
+        }
+        return tokens;
+    }
+
+    public Token getNextToken() {
+        Token returnToken = token(index);
+        if (index < count - 1) {
+            index++;
+        }
+        return returnToken;
+    }
+
+    public Token viewNextToken() {
+        return token(index);
+    }
+
+    public Token peek(int k) {
+        return token((int) Math.min((long) index + k, count - 1));
+    }
+}
@@ -0,0 +1,28 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.io.IOException;
+
+public interface TokenSource {
+    /*
+        A scanner whose current token can be read from its own fields,
+        with no Token made for it. The getters describe the token found by
+        the last scan(). For a scanner that is also a Scanner, that is the
+        token viewNextToken() returns.
+     */
+
+    // Scan the next token
+    public TokenType scan() throws IOException;
+
+    public TokenType getTokenType();
+
+    // Offset of the token in the source
+    public int getTokenStart();
+
+    // NUM value or symbol id of an IDENT_TOKEN, other tokens need not have one
+    public int getTokenValue();
+
+    public SymbolTable getSymbolTable();
+
+    public LineIndex getLineIndex();
+}
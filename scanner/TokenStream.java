@@ -0,0 +1,40 @@
+package scanner;
+
+public interface TokenStream {
+    /*
+        Tokens read as primitives, for a parser that should not need a
+        Token object per token. The current token's kind is its TokenType
+        ordinal, its value is an int or a name already held by the symbol
+        table, and the parser moves on with an explicit advance(). At
+        EOF_TOKEN the stream stays where it is.
+     */
+
+    public int kind();
+
+    // Kind of the token k places ahead, kind(0) is kind()
+    public int kind(int k);
+
+    // Value of a NUM token
+    public int intValue();
+
+    // Name of an IDENT token
+    public String name();
+
+    // Line and column of the current token, 0 when they are not known
+    public int line();
+    public int column();
+
+    public void advance();
+
+    // The cheapest stream over scanner. Scanners that keep their current token in their
+    // own state (TokenSource) are read directly and make no Tokens at all.
+    public static TokenStream of(Scanner scanner) {
+        if (scanner instanceof TokenStream) {
+            return (TokenStream) scanner;
+        }
+        if (scanner instanceof TokenSource) {
+            return new ScannerTokenStream((TokenSource) scanner);
+        }
+        return new LookaheadScanner(scanner);
+    }
+}
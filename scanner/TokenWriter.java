@@ -0,0 +1,225 @@
+package scanner;
+
+import scanner.Token.TokenType;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class TokenWriter implements Closeable, Flushable {
+    /*
+        Writes tokens in the scanner output format, one "TYPE[ data]" line
+        per token, the same text as Token.toString().
+
+        Everything goes into one reusable byte buffer, and the stream is only
+        written when the buffer is full. No String is made per token: the
+        type names are encoded once, numbers are written digit by digit,
+        and names are copied straight from the source bytes or from the
+        interned String.
+
+        In compact mode a line is "line:column TYPE[ data]" with the _TOKEN
+        suffix left off the type, for example "3:10 IDENT x".
+
+        End of file is not written, like scanner.Main never did.
+     */
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final byte[][] NAMES = new byte[TYPES.length][];
+    private static final byte[][] SHORT_NAMES = new byte[TYPES.length][];
+
+    static {
+        for (TokenType type : TYPES) {
+            String name = type.name();
+            NAMES[type.ordinal()] = name.getBytes(StandardCharsets.US_ASCII);
+            SHORT_NAMES[type.ordinal()] = name.substring(0, name.length() - "_TOKEN".length()).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private OutputStream out;
+    private byte[] buffer;
+    private int count;
+    private boolean compact;
+
+    public TokenWriter (OutputStream out) {
+        this(out, false, DEFAULT_BUFFER_SIZE);
+    }
+
+    public TokenWriter (OutputStream out, boolean compact) {
+        this(out, compact, DEFAULT_BUFFER_SIZE);
+    }
+
+    public TokenWriter (OutputStream out, boolean compact, int bufferSize) {
+        this.out = out;
+        this.compact = compact;
+        // Room for the longest fixed part of a line, so only data has to check for space
+        buffer = new byte[Math.max(bufferSize, 64)];
+    }
+
+    public void write(Token token) throws IOException {
+        TokenType type = token.getType();
+        if(type == TokenType.EOF_TOKEN){
+            return;
+        }
+        if(compact){
+            writeType(type, token.getLine(), token.getColumn());
+        } else {
+            writeType(type, 0, 0);
+        }
+        if(type == TokenType.NUM_TOKEN){
+            writeSpace();
+            writeInt(token.getIntValue());
+        } else if(token.getData() != null){
+            writeSpace();
+            writeString(token.getData().toString());
+        }
+        writeByte('\n');
+    }
+
+    // Write every token up to end of file
+    public void writeAll(Scanner scanner) throws IOException {
+        Token token = scanner.getNextToken();
+        while(token.getType() != TokenType.EOF_TOKEN){
+            write(token);
+            token = scanner.getNextToken();
+        }
+    }
+
+    // Write every token from the scanner's current one up to end of file, reading names
+    // straight from the source bytes, so no Token or String is made
+    public void writeAll(ByteCMinusScanner scanner) throws IOException {
+        // Tokens come in order, so compact mode counts lines on the way instead of searching
+        int line = 1;
+        int lineStart = 0;
+        int counted = 0;
+        TokenType type = scanner.getTokenType();
+        while(type != TokenType.EOF_TOKEN){
+            int start = scanner.getTokenStart();
+            if(compact){
+                for(; counted < start; counted++){
+                    if(scanner.buffer.get(counted) == '\n'){
+                        line++;
+                        lineStart = counted + 1;
+                    }
+                }
+                writeType(type, line, start - lineStart + 1);
+            } else {
+                writeType(type, 0, 0);
+            }
+            if(type == TokenType.NUM_TOKEN){
+                writeSpace();
+                writeInt(scanner.tokenValue());
+            } else if(type == TokenType.IDENT_TOKEN){
+                writeSpace();
+                writeBytes(scanner, start, scanner.getTokenEnd());
+            }
+            writeByte('\n');
+            type = scanner.scan();
+        }
+    }
+
+    private void writeType(TokenType type, int line, int column) throws IOException {
+        if(buffer.length - count < 64){
+            flushBuffer();
+        }
+        if(compact){
+            writeInt(line);
+            buffer[count++] = ':';
+            writeInt(column);
+            buffer[count++] = ' ';
+            byte[] name = SHORT_NAMES[type.ordinal()];
+            System.arraycopy(name, 0, buffer, count, name.length);
+            count += name.length;
+        } else {
+            byte[] name = NAMES[type.ordinal()];
+            System.arraycopy(name, 0, buffer, count, name.length);
+            count += name.length;
+        }
+    }
+
+    private void writeSpace() throws IOException {
+        writeByte(' ');
+    }
+
+    private void writeByte(int b) throws IOException {
+        if(count == buffer.length){
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    private void writeInt(int value) throws IOException {
+        if(buffer.length - count < 11){
+            flushBuffer();
+        }
+        if(value < 0){
+            if(value == Integer.MIN_VALUE){
+                writeString(Integer.toString(value));
+                return;
+            }
+            buffer[count++] = '-';
+            value = -value;
+        }
+        // Digits are found backwards, so count them first
+        int digits = 1;
+        for(int rest = value / 10; rest != 0; rest /= 10){
+            digits++;
+        }
+        int at = count + digits;
+        do {
+            buffer[--at] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while(value != 0);
+        count += digits;
+    }
+
+    // C- names are ASCII, anything else (a letter CMinusScanner accepted) is written as UTF-8
+    private void writeString(String text) throws IOException {
+        int length = text.length();
+        for(int i = 0; i < length; i++){
+            char c = text.charAt(i);
+            if(c >= 0x80){
+                byte[] bytes = text.substring(i).getBytes(StandardCharsets.UTF_8);
+                for(byte b : bytes){
+                    writeByte(b);
+                }
+                return;
+            }
+            writeByte(c);
+        }
+    }
+
+    private void writeBytes(ByteCMinusScanner scanner, int start, int end) throws IOException {
+        int length = end - start;
+        if(buffer.length - count < length){
+            flushBuffer();
+            if(buffer.length < length){
+                for(int i = start; i < end; i++){
+                    writeByte(scanner.buffer.get(i));
+                }
+                return;
+            }
+        }
+        scanner.buffer.get(start, buffer, count, length);
+        count += length;
+    }
+
+    private void flushBuffer() throws IOException {
+        if(count > 0){
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    public void close() throws IOException {
+        flushBuffer();
+        out.close();
+    }
+}